@@ -0,0 +1,175 @@
+/*
+ * Copyright (C) 2013-2019 2048FX
+ * Jose Pereda, Bruno Borges & Jens Deters
+ * All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpereda.game2048.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.jpereda.game2048.Direction;
+import org.jpereda.game2048.GridOperator;
+import org.jpereda.game2048.engine.BitBoard;
+import org.jpereda.game2048.engine.BitBoardEngine;
+import org.jpereda.game2048.engine.GameRandom;
+import org.jpereda.game2048.engine.GridEngine;
+import org.jpereda.game2048.engine.MoveEngine;
+import org.jpereda.game2048.engine.MoveResult;
+
+/**
+ * Boards and positions shared by the benchmarks.
+ *
+ * A board is given as "engine-size": bitboard-4 is the 4x4 bitboard used by
+ * the game, grid-4, grid-6 and grid-8 are plain grids of that size.
+ *
+ * Positions are taken from random games, with a fixed seed, so every run
+ * measures the same work.
+ *
+ * @author jpereda
+ */
+final class Boards {
+
+    static final long SEED = 2048L;
+    static final int POSITIONS = 1024;
+
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    private Boards() {
+    }
+
+    static MoveEngine createEngine(String board) {
+        int gridSize = getGridSize(board);
+        if (board.startsWith("bitboard")) {
+            if (gridSize != BitBoard.SIZE) {
+                throw new IllegalArgumentException("Bitboard supports only 4x4 grids: " + board);
+            }
+            return new BitBoardEngine();
+        }
+        return new GridEngine(new GridOperator(gridSize));
+    }
+
+    static int getGridSize(String board) {
+        return Integer.parseInt(board.substring(board.indexOf('-') + 1));
+    }
+
+    /**
+     * @param board engine and size
+     * @param count number of positions
+     * @param full true to fill the empty cells of every position with new
+     * tiles, as random games on big grids take too long to fill them
+     * @return the values of the tiles of each position
+     */
+    static int[][] randomPositions(String board, int count, boolean full) {
+        MoveEngine engine = createEngine(board);
+        GameRandom random = new GameRandom(SEED);
+        List<int[]> positions = new ArrayList<>(count);
+        while (positions.size() < count) {
+            startGame(engine, random);
+            while (engine.canMove() && positions.size() < count) {
+                if (engine.move(DIRECTIONS[random.nextInt(DIRECTIONS.length)]).isMoved()) {
+                    spawn(engine, random);
+                    if (random.nextInt(8) == 0) {
+                        int[] values = getValues(engine);
+                        if (full) {
+                            for (int cell = 0; cell < values.length; cell++) {
+                                if (values[cell] == 0) {
+                                    values[cell] = random.nextTileValue();
+                                }
+                            }
+                        }
+                        positions.add(values);
+                    }
+                }
+            }
+        }
+        return positions.toArray(new int[count][]);
+    }
+
+    /**
+     * @param board engine and size
+     * @param positions values of the tiles
+     * @return one engine loaded with each position
+     */
+    static MoveEngine[] createEngines(String board, int[][] positions) {
+        MoveEngine[] engines = new MoveEngine[positions.length];
+        for (int i = 0; i < positions.length; i++) {
+            engines[i] = createEngine(board);
+            load(engines[i], positions[i]);
+        }
+        return engines;
+    }
+
+    static void load(MoveEngine engine, int[] values) {
+        int gridSize = engine.getGridSize();
+        if (engine instanceof BitBoardEngine) {
+            long board = 0L;
+            for (int cell = 0; cell < values.length; cell++) {
+                board = BitBoard.setExponent(board, cell, BitBoard.toExponent(values[cell]));
+            }
+            ((BitBoardEngine) engine).setBoard(board);
+            return;
+        }
+        engine.clear();
+        for (int cell = 0; cell < values.length; cell++) {
+            if (values[cell] != 0) {
+                engine.setValue(cell % gridSize, cell / gridSize, values[cell]);
+            }
+        }
+    }
+
+    static int[] getValues(MoveEngine engine) {
+        int gridSize = engine.getGridSize();
+        int[] values = new int[gridSize * gridSize];
+        for (int cell = 0; cell < values.length; cell++) {
+            values[cell] = engine.getValue(cell % gridSize, cell / gridSize);
+        }
+        return values;
+    }
+
+    /**
+     * Plays random movements, adding a new tile after every movement, until
+     * the game is over
+     * @param engine to play with
+     * @param random generator
+     * @return the number of movements
+     */
+    static int playRandomGame(MoveEngine engine, GameRandom random) {
+        startGame(engine, random);
+        int moves = 0;
+        while (engine.canMove()) {
+            MoveResult result = engine.move(DIRECTIONS[random.nextInt(DIRECTIONS.length)]);
+            if (result.isMoved()) {
+                spawn(engine, random);
+                moves++;
+            }
+        }
+        return moves;
+    }
+
+    private static void startGame(MoveEngine engine, GameRandom random) {
+        engine.clear();
+        spawn(engine, random);
+        spawn(engine, random);
+    }
+
+    private static void spawn(MoveEngine engine, GameRandom random) {
+        int cell = random.nextCell(engine.getEmptyCells());
+        if (cell >= 0) {
+            int gridSize = engine.getGridSize();
+            engine.setValue(cell % gridSize, cell / gridSize, random.nextTileValue());
+        }
+    }
+}
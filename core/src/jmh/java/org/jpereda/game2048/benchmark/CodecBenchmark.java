@@ -0,0 +1,76 @@
+/*
+ * Copyright (C) 2013-2019 2048FX
+ * Jose Pereda, Bruno Borges & Jens Deters
+ * All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpereda.game2048.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import org.jpereda.game2048.BoardCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Conversion of the grid to the String saved with the session, and back,
+ * as done by SessionManager.
+ *
+ * @author jpereda
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CodecBenchmark {
+
+    @Param({"grid-4", "grid-6", "grid-8"})
+    public String board;
+
+    private int[][] positions;
+    private String[] stored;
+    private int index;
+
+    @Setup
+    public void setup() {
+        positions = Boards.randomPositions(board, Boards.POSITIONS, false);
+        stored = new String[positions.length];
+        for (int i = 0; i < positions.length; i++) {
+            stored[i] = BoardCodec.storeBoard(positions[i]);
+        }
+    }
+
+    @Benchmark
+    public String storeBoard() {
+        index = (index + 1) & (Boards.POSITIONS - 1);
+        return BoardCodec.storeBoard(positions[index]);
+    }
+
+    @Benchmark
+    public int[] restoreBoard() {
+        index = (index + 1) & (Boards.POSITIONS - 1);
+        return BoardCodec.restoreBoard(stored[index]);
+    }
+}
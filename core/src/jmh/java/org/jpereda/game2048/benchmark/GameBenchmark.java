@@ -0,0 +1,69 @@
+/*
+ * Copyright (C) 2013-2019 2048FX
+ * Jose Pereda, Bruno Borges & Jens Deters
+ * All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpereda.game2048.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import org.jpereda.game2048.engine.GameRandom;
+import org.jpereda.game2048.engine.MoveEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * A full game, with random movements, until the game is over. The sequence
+ * of games is the same on every run.
+ *
+ * Random games on big grids are very long: on 8x8 they take millions of
+ * movements, so every iteration runs only a few games.
+ *
+ * @author jpereda
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GameBenchmark {
+
+    @Param({"bitboard-4", "grid-4", "grid-6", "grid-8"})
+    public String board;
+
+    private MoveEngine engine;
+    private GameRandom random;
+
+    @Setup
+    public void setup() {
+        engine = Boards.createEngine(board);
+        random = new GameRandom(Boards.SEED);
+    }
+
+    @Benchmark
+    public int randomGame() {
+        return Boards.playRandomGame(engine, random);
+    }
+}
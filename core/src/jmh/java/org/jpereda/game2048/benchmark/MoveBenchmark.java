@@ -0,0 +1,84 @@
+/*
+ * Copyright (C) 2013-2019 2048FX
+ * Jose Pereda, Bruno Borges & Jens Deters
+ * All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpereda.game2048.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import org.jpereda.game2048.Direction;
+import org.jpereda.game2048.engine.MoveEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * A single movement in each direction, from positions of random games.
+ *
+ * Every movement changes the engine, so the next position is loaded first.
+ * {@link #load()} measures only that, to be subtracted from {@link #move()}.
+ *
+ * @author jpereda
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoveBenchmark {
+
+    @Param({"bitboard-4", "grid-4", "grid-6", "grid-8"})
+    public String board;
+
+    @Param({"UP", "DOWN", "LEFT", "RIGHT"})
+    public Direction direction;
+
+    private MoveEngine engine;
+    private int[][] positions;
+    private int index;
+
+    @Setup
+    public void setup() {
+        engine = Boards.createEngine(board);
+        positions = Boards.randomPositions(board, Boards.POSITIONS, false);
+    }
+
+    @Benchmark
+    public int load() {
+        Boards.load(engine, nextPosition());
+        return engine.getEmptyCells().size();
+    }
+
+    @Benchmark
+    public int move() {
+        Boards.load(engine, nextPosition());
+        return engine.move(direction).size();
+    }
+
+    private int[] nextPosition() {
+        index = (index + 1) & (Boards.POSITIONS - 1);
+        return positions[index];
+    }
+}
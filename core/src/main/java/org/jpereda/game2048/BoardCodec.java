@@ -0,0 +1,83 @@
+/*
+ * Copyright (C) 2013-2019 2048FX
+ * Jose Pereda, Bruno Borges & Jens Deters
+ * All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.jpereda.game2048;
+
+/**
+ * Converts the values of the tiles of a grid to the String stored in the
+ * session and back.
+ *
+ * Each tile is stored with a value of its power of 2, as two hex chars:
+ * 0->00, 2->01, 4->02, 8->03, ... 2048->0B, .... 32768->0F, 65536->10, 131072->11, 262144->12
+ * starting from the last cell, so a 4x4 grid takes 32 chars.
+ *
+ * @author jpereda
+ */
+public final class BoardCodec {
+
+    // the largest power of 2 that fits in an int
+    private static final int MAX_EXPONENT = 30;
+
+    private BoardCodec() {
+    }
+
+    /**
+     * @param grid values of the tiles, with the cell (x, y) at x + gridSize * y,
+     * and 0 for empty cells
+     * @return the encoded grid
+     */
+    public static String storeBoard(int[] grid) {
+        String board = "";
+        for (int i = grid.length-1; i >= 0; i--) {
+            int cont=0;
+            int x = grid[i] == 0 ? 1 : grid[i];
+            while (((x & 1) == 0) && x > 1) {
+                x >>= 1;
+                cont++;
+            }
+            String s = Long.toString(cont, 16);
+            board = board.concat(s.length() == 1 ? "0" : "").concat(s);
+        }
+        return board;
+    }
+
+    /**
+     * @param stored the encoded grid
+     * @return the values of the tiles, with 0 for empty cells
+     * @throws IllegalArgumentException if the encoded grid is not valid
+     */
+    public static int[] restoreBoard(String stored) {
+        if (stored.length() % 2 != 0) {
+            throw new IllegalArgumentException("Invalid board: " + stored);
+        }
+        String board = stored;
+        int[] grid = new int[board.length() / 2];
+        for(int i = 0; i < grid.length; i++) {
+            String s = board.substring(board.length() - 2, board.length());
+            board = board.substring(0, board.length() - 2);
+            int exponent = Character.digit(s.charAt(0), 16) << 4 | Character.digit(s.charAt(1), 16);
+            if (exponent < 0 || exponent > MAX_EXPONENT) {
+                throw new IllegalArgumentException("Invalid board: " + stored);
+            }
+            int val = 1 << exponent;
+            grid[i] = val > 1 ? val : 0;
+        }
+        return grid;
+    }
+}
@@ -19,8 +19,6 @@
 
 package org.jpereda.game2048;
 
-import javafx.scene.input.KeyCode;
-
 /**
  * @author bruno.borges@oracle.com
  */
@@ -48,8 +46,4 @@ public enum Direction {
     public String toString() {
         return "Direction{" + "y=" + y + ", x=" + x + '}' + name();
     }
-
-    public static Direction valueFor(KeyCode keyCode) {
-        return valueOf(keyCode.name());
-    }
 }
@@ -0,0 +1,91 @@
+/*
+ * Copyright (C) 2013-2019 2048FX
+ * Jose Pereda, Bruno Borges & Jens Deters
+ * All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.jpereda.game2048;
+
+/**
+ *
+ * @author jpereda
+ */
+public class GridOperator {
+
+    public static final int DEFAULT_GRID_SIZE = 4;
+
+    private final int gridSize;
+    private final Location[] locations;
+    private final Traversal[] traversals = new Traversal[Direction.values().length];
+
+    public GridOperator(){
+        this(DEFAULT_GRID_SIZE);
+    }
+
+    public GridOperator(int gridSize){
+        this.gridSize=gridSize;
+
+        locations = new Location[gridSize * gridSize];
+        for (int y = 0; y < gridSize; y++) {
+            for (int x = 0; x < gridSize; x++) {
+                locations[getCell(x, y)] = new Location(x, y);
+            }
+        }
+        for (Direction direction : Direction.values()) {
+            traversals[direction.ordinal()] = Traversal.of(gridSize, direction);
+        }
+    }
+
+    public int getGridSize(){ return gridSize; }
+
+    public int getCell(int x, int y) {
+        return x + gridSize * y;
+    }
+
+    /**
+     * @param x coordinate
+     * @param y coordinate
+     * @return the shared instance of the location, to avoid allocations
+     */
+    public Location getLocation(int x, int y) {
+        return locations[getCell(x, y)];
+    }
+
+    public Location getLocation(int cell) {
+        return locations[cell];
+    }
+
+    public boolean isValidLocation(Location loc){
+        return loc.getX() >= 0 && loc.getX() < gridSize && loc.getY() >= 0 && loc.getY() < gridSize;
+    }
+
+    /**
+     * @param direction of movement
+     * @return the traversal plan for the given direction
+     */
+    public Traversal getTraversal(Direction direction) {
+        return traversals[direction.ordinal()];
+    }
+
+    /**
+     * @return the traversal plan to visit all the cells when there is no
+     * movement: column by column, from top to bottom
+     */
+    public Traversal getTraversal() {
+        return getTraversal(Direction.UP);
+    }
+
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright (C) 2013-2019 2048FX
+ * Jose Pereda, Bruno Borges & Jens Deters
+ * All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.jpereda.game2048;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Immutable order in which the cells of a grid are traversed when the tiles
+ * move in a given direction: line after line, each one starting from the edge
+ * the tiles move to. Cells are given by their index x + gridSize * y.
+ *
+ * Plans are built once per grid size and direction, and shared.
+ *
+ * @author jpereda
+ */
+public final class Traversal {
+
+    private static final Map<Integer, Traversal[]> PLANS = new ConcurrentHashMap<>();
+
+    private final int gridSize;
+    private final Direction direction;
+    private final int[] cells;
+
+    private Traversal(int gridSize, Direction direction) {
+        this.gridSize = gridSize;
+        this.direction = direction;
+        this.cells = new int[gridSize * gridSize];
+        int index = 0;
+        for (int line = 0; line < gridSize; line++) {
+            for (int i = 0; i < gridSize; i++) {
+                switch (direction) {
+                    case LEFT:  cells[index++] = i + gridSize * line; break;
+                    case RIGHT: cells[index++] = (gridSize - 1 - i) + gridSize * line; break;
+                    case UP:    cells[index++] = line + gridSize * i; break;
+                    default:    cells[index++] = line + gridSize * (gridSize - 1 - i); break;
+                }
+            }
+        }
+    }
+
+    /**
+     * @param gridSize size of the grid
+     * @param direction of movement
+     * @return the shared traversal plan
+     */
+    public static Traversal of(int gridSize, Direction direction) {
+        Traversal[] plans = PLANS.get(gridSize);
+        if (plans == null) {
+            Direction[] directions = Direction.values();
+            plans = new Traversal[directions.length];
+            for (Direction d : directions) {
+                plans[d.ordinal()] = new Traversal(gridSize, d);
+            }
+            Traversal[] previous = PLANS.putIfAbsent(gridSize, plans);
+            if (previous != null) {
+                plans = previous;
+            }
+        }
+        return plans[direction.ordinal()];
+    }
+
+    public int getGridSize() {
+        return gridSize;
+    }
+
+    public Direction getDirection() {
+        return direction;
+    }
+
+    /**
+     * @return the number of cells
+     */
+    public int size() {
+        return cells.length;
+    }
+
+    /**
+     * @param index position in the traversal
+     * @return the cell index
+     */
+    public int getCell(int index) {
+        return cells[index];
+    }
+
+    public int getX(int index) {
+        return cells[index] % gridSize;
+    }
+
+    public int getY(int index) {
+        return cells[index] / gridSize;
+    }
+
+    /**
+     * Reusable cursor over a traversal plan
+     */
+    public static final class Cursor {
+
+        private Traversal traversal;
+        private int index;
+
+        /**
+         * Moves the cursor before the first cell of the given plan
+         * @param traversal plan
+         * @return this cursor
+         */
+        public Cursor reset(Traversal traversal) {
+            this.traversal = traversal;
+            this.index = -1;
+            return this;
+        }
+
+        /**
+         * @return true if the cursor moved to a new cell, false if the
+         * traversal is over
+         */
+        public boolean next() {
+            return ++index < traversal.cells.length;
+        }
+
+        public int getCell() {
+            return traversal.cells[index];
+        }
+
+        public int getX() {
+            return traversal.cells[index] % traversal.gridSize;
+        }
+
+        public int getY() {
+            return traversal.cells[index] / traversal.gridSize;
+        }
+
+        /**
+         * @return the position of the cell within its line, starting from
+         * the edge the tiles move to
+         */
+        public int getPosition() {
+            return index % traversal.gridSize;
+        }
+    }
+}
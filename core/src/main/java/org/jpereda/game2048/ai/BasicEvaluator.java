@@ -0,0 +1,55 @@
+/*
+ * Copyright (C) 2013-2019 2048FX
+ * Jose Pereda, Bruno Borges & Jens Deters
+ * All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpereda.game2048.ai;
+
+import org.jpereda.game2048.engine.BitBoard;
+import org.jpereda.game2048.engine.MoveTables;
+
+/**
+ * Simple evaluator that rewards empty cells, pairs of tiles that can be
+ * merged and the highest tile in a corner.
+ *
+ * @author jpereda
+ */
+public class BasicEvaluator implements Evaluator {
+
+    private static final float BASE = 1000f;
+    private static final float EMPTY_WEIGHT = 100f;
+    private static final float MERGE_WEIGHT = 50f;
+    private static final float CORNER_WEIGHT = 20f;
+
+    private static final int[] CORNERS = {
+        BitBoard.getCell(0, 0), BitBoard.getCell(BitBoard.SIZE - 1, 0),
+        BitBoard.getCell(0, BitBoard.SIZE - 1), BitBoard.getCell(BitBoard.SIZE - 1, BitBoard.SIZE - 1)
+    };
+
+    @Override
+    public float evaluate(long board) {
+        float value = BASE + EMPTY_WEIGHT * BitBoard.countEmpty(board)
+                + MERGE_WEIGHT * MoveTables.countMergeablePairs(board);
+        int max = BitBoard.getMaxExponent(board);
+        for (int corner : CORNERS) {
+            if (BitBoard.getExponent(board, corner) == max) {
+                value += CORNER_WEIGHT * max;
+                break;
+            }
+        }
+        return value;
+    }
+}
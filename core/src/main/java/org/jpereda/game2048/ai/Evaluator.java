@@ -0,0 +1,37 @@
+/*
+ * Copyright (C) 2013-2019 2048FX
+ * Jose Pereda, Bruno Borges & Jens Deters
+ * All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpereda.game2048.ai;
+
+/**
+ * Heuristic value of a 4x4 bitboard, used by the solvers on the leaves of
+ * the search tree.
+ *
+ * Implementations must be thread safe and return positive values: a higher
+ * value means a better position, and 0 is reserved for a game over.
+ *
+ * @author jpereda
+ */
+public interface Evaluator {
+
+    /**
+     * @param board a 4x4 bitboard
+     * @return the heuristic value of the board
+     */
+    float evaluate(long board);
+}
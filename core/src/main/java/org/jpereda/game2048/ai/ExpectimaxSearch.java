@@ -0,0 +1,160 @@
+/*
+ * Copyright (C) 2013-2019 2048FX
+ * Jose Pereda, Bruno Borges & Jens Deters
+ * All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpereda.game2048.ai;
+
+import org.jpereda.game2048.Direction;
+import org.jpereda.game2048.engine.BitBoard;
+import org.jpereda.game2048.engine.MoveTables;
+
+/**
+ * Sequential expectimax recursion, shared by the solvers. Not thread safe:
+ * every thread needs its own instance.
+ *
+ * @author jpereda
+ */
+class ExpectimaxSearch {
+
+    static final float PROBABILITY_2 = 0.9f;
+    static final float PROBABILITY_4 = 0.1f;
+
+    static final Direction[] DIRECTIONS = Direction.values();
+
+    // the interrupted flag of the thread is checked every 1024 nodes
+    private static final long INTERRUPT_CHECK_MASK = 0x3FF;
+
+    private final Evaluator evaluator;
+    private final TranspositionTable table;
+    private float minProbability;
+    private long nodes;
+    private boolean interruptible;
+    private boolean interrupted;
+
+    ExpectimaxSearch(Evaluator evaluator, TranspositionTable table) {
+        this.evaluator = evaluator;
+        this.table = table;
+    }
+
+    TranspositionTable getTable() {
+        return table;
+    }
+
+    void reset(float minProbability) {
+        reset(minProbability, false);
+    }
+
+    /**
+     * @param minProbability of the nodes to expand
+     * @param interruptible true to abort the search when the thread is
+     * interrupted: all the nodes return 0, and are not cached
+     */
+    void reset(float minProbability, boolean interruptible) {
+        this.minProbability = minProbability;
+        this.nodes = 0;
+        this.interruptible = interruptible;
+        this.interrupted = false;
+    }
+
+    /**
+     * @return true if the search was aborted because the thread was
+     * interrupted
+     */
+    boolean isInterrupted() {
+        return interrupted;
+    }
+
+    long getNodes() {
+        return nodes;
+    }
+
+    void addNodes(long nodes) {
+        this.nodes += nodes;
+    }
+
+    /**
+     * Polled by interruptible searches
+     * @return true if the search has to be aborted: by default, if the
+     * thread is interrupted
+     */
+    boolean isStopRequested() {
+        return Thread.currentThread().isInterrupted();
+    }
+
+    boolean isLeaf(int depth, float probability) {
+        return depth <= 0 || probability < minProbability;
+    }
+
+    float evaluate(long board) {
+        return evaluator.evaluate(board);
+    }
+
+    /**
+     * @param board after a movement
+     * @param depth remaining movements
+     * @param probability of reaching this node
+     * @return the expected value of the board over all the new tiles
+     */
+    float chanceNode(long board, int depth, float probability) {
+        nodes++;
+        if (interruptible && (interrupted ||
+                ((nodes & INTERRUPT_CHECK_MASK) == 0 && isStopRequested()))) {
+            interrupted = true;
+            return 0f;
+        }
+        if (isLeaf(depth, probability)) {
+            return evaluator.evaluate(board);
+        }
+        float cached = table.get(board, depth);
+        if (cached != TranspositionTable.MISSING) {
+            return cached;
+        }
+
+        int empty = BitBoard.countEmpty(board);
+        float cellProbability = probability / empty;
+        float sum = 0f;
+        for (int cell = 0; cell < BitBoard.CELLS; cell++) {
+            if (BitBoard.getExponent(board, cell) == 0) {
+                sum += PROBABILITY_2 * maxNode(BitBoard.setExponent(board, cell, 1), depth, cellProbability * PROBABILITY_2);
+                sum += PROBABILITY_4 * maxNode(BitBoard.setExponent(board, cell, 2), depth, cellProbability * PROBABILITY_4);
+            }
+        }
+        float value = sum / empty;
+        if (!interrupted) {
+            table.put(board, depth, value);
+        }
+        return value;
+    }
+
+    /**
+     * @param board after a new tile
+     * @param depth remaining movements
+     * @param probability of reaching this node
+     * @return the value of the best movement, or 0 if no tile can move
+     */
+    float maxNode(long board, int depth, float probability) {
+        nodes++;
+        float best = 0f;
+        for (Direction direction : DIRECTIONS) {
+            long moved = MoveTables.move(board, direction);
+            if (moved != board) {
+                best = Math.max(best, chanceNode(moved, depth - 1, probability));
+            }
+        }
+        return best;
+    }
+}
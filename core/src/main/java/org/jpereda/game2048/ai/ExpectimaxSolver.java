@@ -0,0 +1,158 @@
+/*
+ * Copyright (C) 2013-2019 2048FX
+ * Jose Pereda, Bruno Borges & Jens Deters
+ * All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpereda.game2048.ai;
+
+import org.jpereda.game2048.Direction;
+import org.jpereda.game2048.engine.MoveTables;
+
+/**
+ * Finds the best movement for a 4x4 bitboard with an expectimax search.
+ *
+ * The search alternates max nodes, where the player picks the movement with
+ * the highest expected value, and chance nodes, where a new tile is added to
+ * any empty cell, with a 2 at 90% and a 4 at 10%, as in the game.
+ *
+ * Chance nodes are cut once the probability of reaching them is lower than
+ * a threshold, and their values are cached in a {@link TranspositionTable}.
+ * The leaves are scored by an {@link Evaluator}.
+ *
+ * A solver is not thread safe.
+ *
+ * @author jpereda
+ */
+public class ExpectimaxSolver implements HintEngine {
+
+    public static final int DEFAULT_DEPTH = 3;
+    public static final float DEFAULT_MIN_PROBABILITY = 0.0001f;
+    public static final int DEFAULT_TABLE_BITS = 20;
+
+    private final Evaluator evaluator;
+    private final ExpectimaxSearch search;
+    private int depth = DEFAULT_DEPTH;
+    private float minProbability = DEFAULT_MIN_PROBABILITY;
+
+    public ExpectimaxSolver() {
+        this(new TableEvaluator());
+    }
+
+    public ExpectimaxSolver(Evaluator evaluator) {
+        this(evaluator, new LocalTranspositionTable(DEFAULT_TABLE_BITS));
+    }
+
+    public ExpectimaxSolver(Evaluator evaluator, TranspositionTable table) {
+        this.evaluator = evaluator;
+        this.search = new ExpectimaxSearch(evaluator, table);
+    }
+
+    public Evaluator getEvaluator() {
+        return evaluator;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * @param depth number of movements to look ahead, at least 1
+     */
+    public void setDepth(int depth) {
+        if (depth < 1) {
+            throw new IllegalArgumentException("Depth must be at least 1: " + depth);
+        }
+        this.depth = depth;
+    }
+
+    public float getMinProbability() {
+        return minProbability;
+    }
+
+    /**
+     * @param minProbability chance nodes less likely than this are not
+     * expanded, but evaluated
+     */
+    public void setMinProbability(float minProbability) {
+        this.minProbability = minProbability;
+    }
+
+    /**
+     * @return the number of nodes visited by the last search
+     */
+    public long getNodes() {
+        return search.getNodes();
+    }
+
+    /**
+     * @param board a 4x4 bitboard
+     * @return the movement with the highest expected value, or null if no
+     * tile can move
+     */
+    public Direction findBestMove(long board) {
+        return findBestMove(board, false);
+    }
+
+    /**
+     * As {@link #findBestMove(long)}, but the search can be cancelled by
+     * interrupting the calling thread
+     * @param board a 4x4 bitboard
+     * @return the movement with the highest expected value, or null if no
+     * tile can move
+     * @throws InterruptedException if the thread was interrupted during the
+     * search
+     */
+    @Override
+    public Direction findBestMoveInterruptibly(long board) throws InterruptedException {
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+        Direction best = findBestMove(board, true);
+        if (search.isInterrupted()) {
+            Thread.interrupted();
+            throw new InterruptedException();
+        }
+        return best;
+    }
+
+    private Direction findBestMove(long board, boolean interruptible) {
+        search.reset(minProbability, interruptible);
+        search.getTable().clear();
+        Direction best = null;
+        float bestValue = -1f;
+        for (Direction direction : ExpectimaxSearch.DIRECTIONS) {
+            float value = evaluateMove(board, direction);
+            if (value > bestValue) {
+                bestValue = value;
+                best = direction;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * @param board a 4x4 bitboard
+     * @param direction of movement
+     * @return the expected value of the movement, or -1 if no tile moves
+     */
+    float evaluateMove(long board, Direction direction) {
+        long moved = MoveTables.move(board, direction);
+        if (moved == board) {
+            return -1f;
+        }
+        return search.chanceNode(moved, depth - 1, 1f);
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright (C) 2013-2019 2048FX
+ * Jose Pereda, Bruno Borges & Jens Deters
+ * All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpereda.game2048.ai;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Properties;
+
+/**
+ * Weights of the heuristic terms of a {@link TableEvaluator}.
+ *
+ * They can be loaded from, and saved to, a properties file with these keys,
+ * all optional: base, empty, merges, monotonicity, monotonicityPower,
+ * smoothness, sum, sumPower and corner.
+ *
+ * The default weights come from tuning the expectimax search: with them,
+ * the smoothness and corner terms don't improve the results, so their
+ * weight is 0.
+ *
+ * @author jpereda
+ */
+public final class HeuristicWeights {
+
+    public static final HeuristicWeights DEFAULT = new HeuristicWeights(
+            200000f, 270f, 700f, 47f, 4f, 0f, 11f, 3.5f, 0f);
+
+    private final float base;
+    private final float empty;
+    private final float merges;
+    private final float monotonicity;
+    private final float monotonicityPower;
+    private final float smoothness;
+    private final float sum;
+    private final float sumPower;
+    private final float corner;
+
+    /**
+     * @param base value added to every line, so the values are positive
+     * @param empty reward for every empty cell
+     * @param merges reward for every tile that can be merged with its neighbour
+     * @param monotonicity penalty for the lines that are not monotonic
+     * @param monotonicityPower power applied to the ranks of the tiles in
+     * the monotonicity penalty
+     * @param smoothness penalty for the difference of rank between neighbours
+     * @param sum penalty for the tiles on the line
+     * @param sumPower power applied to the ranks of the tiles in the sum penalty
+     * @param corner reward for the highest tile of the line at one of its ends
+     */
+    public HeuristicWeights(float base, float empty, float merges, float monotonicity, float monotonicityPower,
+            float smoothness, float sum, float sumPower, float corner) {
+        this.base = base;
+        this.empty = empty;
+        this.merges = merges;
+        this.monotonicity = monotonicity;
+        this.monotonicityPower = monotonicityPower;
+        this.smoothness = smoothness;
+        this.sum = sum;
+        this.sumPower = sumPower;
+        this.corner = corner;
+    }
+
+    /**
+     * @param file with the weights, in properties format
+     * @return the weights read, with the default value for missing keys
+     * @throws IOException if the file can't be read
+     * @throws IllegalArgumentException if a value is not a number
+     */
+    public static HeuristicWeights load(File file) throws IOException {
+        try (InputStream input = new FileInputStream(file)) {
+            return load(input);
+        }
+    }
+
+    /**
+     * @param input stream with the weights, in properties format
+     * @return the weights read, with the default value for missing keys
+     * @throws IOException if the stream can't be read
+     * @throws IllegalArgumentException if a value is not a number
+     */
+    public static HeuristicWeights load(InputStream input) throws IOException {
+        Properties properties = new Properties();
+        properties.load(input);
+        HeuristicWeights d = DEFAULT;
+        return new HeuristicWeights(
+                read(properties, "base", d.base),
+                read(properties, "empty", d.empty),
+                read(properties, "merges", d.merges),
+                read(properties, "monotonicity", d.monotonicity),
+                read(properties, "monotonicityPower", d.monotonicityPower),
+                read(properties, "smoothness", d.smoothness),
+                read(properties, "sum", d.sum),
+                read(properties, "sumPower", d.sumPower),
+                read(properties, "corner", d.corner));
+    }
+
+    /**
+     * @param output stream to write the weights to, in properties format
+     * @throws IOException if the stream can't be written
+     */
+    public void store(OutputStream output) throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty("base", Float.toString(base));
+        properties.setProperty("empty", Float.toString(empty));
+        properties.setProperty("merges", Float.toString(merges));
+        properties.setProperty("monotonicity", Float.toString(monotonicity));
+        properties.setProperty("monotonicityPower", Float.toString(monotonicityPower));
+        properties.setProperty("smoothness", Float.toString(smoothness));
+        properties.setProperty("sum", Float.toString(sum));
+        properties.setProperty("sumPower", Float.toString(sumPower));
+        properties.setProperty("corner", Float.toString(corner));
+        properties.store(output, "2048FX heuristic weights");
+    }
+
+    private static float read(Properties properties, String key, float defaultValue) {
+        String value = properties.getProperty(key);
+        if (value == null || value.trim().isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Float.parseFloat(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid value for " + key + ": " + value, e);
+        }
+    }
+
+    public float getBase() {
+        return base;
+    }
+
+    public float getEmpty() {
+        return empty;
+    }
+
+    public float getMerges() {
+        return merges;
+    }
+
+    public float getMonotonicity() {
+        return monotonicity;
+    }
+
+    public float getMonotonicityPower() {
+        return monotonicityPower;
+    }
+
+    public float getSmoothness() {
+        return smoothness;
+    }
+
+    public float getSum() {
+        return sum;
+    }
+
+    public float getSumPower() {
+        return sumPower;
+    }
+
+    public float getCorner() {
+        return corner;
+    }
+
+    @Override
+    public String toString() {
+        return "HeuristicWeights{" + "base=" + base + ", empty=" + empty + ", merges=" + merges
+                + ", monotonicity=" + monotonicity + ", monotonicityPower=" + monotonicityPower
+                + ", smoothness=" + smoothness + ", sum=" + sum + ", sumPower=" + sumPower
+                + ", corner=" + corner + '}';
+    }
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright (C) 2013-2019 2048FX
+ * Jose Pereda, Bruno Borges & Jens Deters
+ * All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpereda.game2048.ai;
+
+import org.jpereda.game2048.Direction;
+
+/**
+ * A solver that can search the best movement of a 4x4 bitboard in the
+ * background, to give hints.
+ *
+ * The search runs on the calling thread, or waits for it, and is cancelled
+ * by interrupting that thread.
+ *
+ * @author jpereda
+ */
+public interface HintEngine {
+
+    /**
+     * @param board a 4x4 bitboard
+     * @return the best movement found, or null if no tile can move
+     * @throws InterruptedException if the thread was interrupted during the
+     * search
+     */
+    Direction findBestMoveInterruptibly(long board) throws InterruptedException;
+}
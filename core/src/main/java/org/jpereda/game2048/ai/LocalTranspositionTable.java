@@ -0,0 +1,76 @@
+/*
+ * Copyright (C) 2013-2019 2048FX
+ * Jose Pereda, Bruno Borges & Jens Deters
+ * All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpereda.game2048.ai;
+
+import java.util.Arrays;
+
+/**
+ * Transposition table for a single thread, held in primitive arrays.
+ *
+ * It is direct mapped: every board goes to one slot, given by its hash, and
+ * a new value replaces the previous one.
+ *
+ * @author jpereda
+ */
+public class LocalTranspositionTable implements TranspositionTable {
+
+    private final int shift;
+    private final long[] boards;
+    private final float[] values;
+    private final byte[] depths;
+
+    /**
+     * @param bits the table has 2^bits slots, between 1 and 28
+     */
+    public LocalTranspositionTable(int bits) {
+        if (bits < 1 || bits > 28) {
+            throw new IllegalArgumentException("Invalid table size: " + bits);
+        }
+        shift = 64 - bits;
+        boards = new long[1 << bits];
+        values = new float[1 << bits];
+        depths = new byte[1 << bits];
+    }
+
+    @Override
+    public float get(long board, int depth) {
+        int slot = slot(board);
+        if (depths[slot] >= depth && boards[slot] == board) {
+            return values[slot];
+        }
+        return MISSING;
+    }
+
+    @Override
+    public void put(long board, int depth, float value) {
+        int slot = slot(board);
+        boards[slot] = board;
+        values[slot] = value;
+        depths[slot] = (byte) depth;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(depths, (byte) 0);
+    }
+
+    private int slot(long board) {
+        return (int) ((board * 0x9e3779b97f4a7c15L) >>> shift);
+    }
+}
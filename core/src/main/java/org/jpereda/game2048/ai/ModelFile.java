@@ -0,0 +1,229 @@
+/*
+ * Copyright (C) 2013-2019 2048FX
+ * Jose Pereda, Bruno Borges & Jens Deters
+ * All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpereda.game2048.ai;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.zip.CRC32;
+
+/**
+ * Binary format of the trained models, designed to be memory mapped: the
+ * weights are never parsed nor copied to the heap, and the operating system
+ * reads their pages the first time they are used.
+ *
+ * All the values are little endian:
+ * <pre>
+ * offset  size
+ *      0     8  magic "2048FXNT"
+ *      8     4  format version, {@link #VERSION}
+ *     12     4  header length in bytes, including the checksum
+ *     16     4  number of tuples, n
+ *     20        for each tuple: number of cells c (4 bytes), c cells (4 bytes
+ *               each), offset of its weights in the file (8 bytes)
+ *      *     4  CRC32 of all the previous bytes of the header
+ * </pre>
+ * The weights of each tuple are 16^c floats, starting at an offset aligned
+ * to {@link #ALIGNMENT}, so each table is mapped from the start of a page.
+ *
+ * @author jpereda
+ */
+public final class ModelFile {
+
+    public static final int VERSION = 1;
+    public static final int ALIGNMENT = 4096;
+
+    private static final byte[] MAGIC = {'2', '0', '4', '8', 'F', 'X', 'N', 'T'};
+    private static final int PREAMBLE = 20;
+    private static final int MAX_HEADER = 64 * 1024;
+
+    private final int[][] tuples;
+    private final ByteBuffer[] weights;
+
+    private ModelFile(int[][] tuples, ByteBuffer[] weights) {
+        this.tuples = tuples;
+        this.weights = weights;
+    }
+
+    /**
+     * @return cells of each tuple
+     */
+    int[][] getTuples() {
+        return tuples;
+    }
+
+    /**
+     * @return weights of each tuple, as little endian floats
+     */
+    ByteBuffer[] getWeights() {
+        return weights;
+    }
+
+    /**
+     * Writes the tuples and their weights
+     * @param file to write to
+     * @param tuples cells of each tuple
+     * @param weights of each tuple, as little endian floats
+     * @throws IOException if the file can't be written
+     */
+    static void write(File file, int[][] tuples, ByteBuffer[] weights) throws IOException {
+        int headerLength = PREAMBLE + 4;
+        for (int[] tuple : tuples) {
+            headerLength += 4 + 4 * tuple.length + 8;
+        }
+        ByteBuffer header = ByteBuffer.allocate(headerLength).order(ByteOrder.LITTLE_ENDIAN);
+        header.put(MAGIC).putInt(VERSION).putInt(headerLength).putInt(tuples.length);
+        long[] offsets = new long[tuples.length];
+        long offset = align(headerLength);
+        for (int t = 0; t < tuples.length; t++) {
+            header.putInt(tuples[t].length);
+            for (int cell : tuples[t]) {
+                header.putInt(cell);
+            }
+            offsets[t] = offset;
+            header.putLong(offset);
+            offset = align(offset + weights[t].capacity());
+        }
+        CRC32 crc = new CRC32();
+        crc.update(header.array(), 0, header.position());
+        header.putInt((int) crc.getValue());
+        header.flip();
+
+        try (RandomAccessFile output = new RandomAccessFile(file, "rw")) {
+            output.setLength(0);
+            FileChannel channel = output.getChannel();
+            write(channel, header, 0);
+            for (int t = 0; t < tuples.length; t++) {
+                write(channel, weights[t].duplicate(), offsets[t]);
+            }
+            output.setLength(offset);
+            channel.force(true);
+        }
+    }
+
+    /**
+     * Maps the weights of each tuple of a model file, read only. Only the
+     * header is read.
+     * @param file to map
+     * @return the tuples and their mapped weights
+     * @throws IOException if the file can't be read, or isn't a valid model
+     */
+    static ModelFile map(File file) throws IOException {
+        return open(file, true);
+    }
+
+    /**
+     * Reads the weights of each tuple of a model file into new direct
+     * buffers, that can be changed, and don't keep the file open
+     * @param file to read
+     * @return the tuples and their weights
+     * @throws IOException if the file can't be read, or isn't a valid model
+     */
+    static ModelFile read(File file) throws IOException {
+        return open(file, false);
+    }
+
+    private static ModelFile open(File file, boolean mapped) throws IOException {
+        try (RandomAccessFile input = new RandomAccessFile(file, "r")) {
+            FileChannel channel = input.getChannel();
+            ByteBuffer preamble = read(channel, 0, PREAMBLE, file);
+            byte[] magic = new byte[MAGIC.length];
+            preamble.get(magic);
+            for (int i = 0; i < MAGIC.length; i++) {
+                if (magic[i] != MAGIC[i]) {
+                    throw new IOException("Not a model file: " + file);
+                }
+            }
+            int version = preamble.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported model version " + version + ": " + file);
+            }
+            int headerLength = preamble.getInt();
+            if (headerLength < PREAMBLE + 4 || headerLength > MAX_HEADER) {
+                throw new IOException("Wrong header length " + headerLength + ": " + file);
+            }
+            ByteBuffer header = read(channel, 0, headerLength, file);
+            CRC32 crc = new CRC32();
+            crc.update(header.array(), 0, headerLength - 4);
+            if ((int) crc.getValue() != header.getInt(headerLength - 4)) {
+                throw new IOException("Wrong header checksum: " + file);
+            }
+
+            header.position(PREAMBLE - 4);
+            int count = header.getInt();
+            if (count <= 0 || count > headerLength / 16) {
+                throw new IOException("Wrong number of tuples " + count + ": " + file);
+            }
+            long size = channel.size();
+            int[][] tuples = new int[count][];
+            ByteBuffer[] weights = new ByteBuffer[count];
+            for (int t = 0; t < count; t++) {
+                int length = header.getInt();
+                if (length <= 0 || length > NTupleNetwork.MAX_TUPLE_CELLS || header.remaining() < 4 * length + 12) {
+                    throw new IOException("Wrong tuple length " + length + ": " + file);
+                }
+                tuples[t] = new int[length];
+                for (int k = 0; k < length; k++) {
+                    tuples[t][k] = header.getInt();
+                }
+                long offset = header.getLong();
+                int bytes = 4 * NTupleNetwork.getWeightCount(length);
+                if (offset < headerLength || offset + bytes > size) {
+                    throw new IOException("Weights of tuple " + t + " out of the file: " + file);
+                }
+                if (mapped) {
+                    weights[t] = channel.map(FileChannel.MapMode.READ_ONLY, offset, bytes);
+                } else {
+                    weights[t] = ByteBuffer.allocateDirect(bytes);
+                    read(channel, weights[t], offset, file);
+                }
+                weights[t].order(ByteOrder.LITTLE_ENDIAN);
+            }
+            return new ModelFile(tuples, weights);
+        }
+    }
+
+    private static long align(long offset) {
+        return (offset + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT;
+    }
+
+    private static void write(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    private static ByteBuffer read(FileChannel channel, long position, int length, File file) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        read(channel, buffer, position, file);
+        return buffer;
+    }
+
+    private static void read(FileChannel channel, ByteBuffer buffer, long position, File file) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of file: " + file);
+            }
+        }
+        buffer.flip();
+    }
+}
@@ -0,0 +1,322 @@
+/*
+ * Copyright (C) 2013-2019 2048FX
+ * Jose Pereda, Bruno Borges & Jens Deters
+ * All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpereda.game2048.ai;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+import org.jpereda.game2048.Direction;
+import org.jpereda.game2048.engine.GameRandom;
+import org.jpereda.game2048.engine.MoveTables;
+
+/**
+ * Lighter alternative to the expectimax solvers: for a time budget, it plays
+ * random or greedy games (rollouts) of a few movements after each legal
+ * movement of the board, and estimates the points expected after each
+ * movement and the probability of not losing within those movements.
+ *
+ * The rollouts run on a fork/join pool, each worker with its own generator,
+ * cycling over the legal movements so all of them get a similar number of
+ * rollouts. The statistics only grow while the budget runs, so each
+ * progress snapshot is at least as good as the previous one.
+ *
+ * {@link #analyze(long, long, Listener)} blocks the calling thread until
+ * the budget is spent, and can be cancelled by interrupting it. Only one
+ * analysis runs at a time: concurrent calls wait for each other.
+ *
+ * @author jpereda
+ */
+public class MonteCarloSolver implements HintEngine, AutoCloseable {
+
+    public static final long DEFAULT_BUDGET_MILLIS = 100;
+    public static final int DEFAULT_HORIZON = 40;
+    public static final long DEFAULT_PROGRESS_MILLIS = 25;
+
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    public enum Policy {
+        /**
+         * any movement that changes the board, at random
+         */
+        RANDOM,
+        /**
+         * the movement that gains more points, or a random one if none
+         * gains points
+         */
+        GREEDY
+    }
+
+    /**
+     * Receives the snapshots of an analysis, on the thread that called
+     * {@link MonteCarloSolver#analyze(long, long, Listener)}
+     */
+    public interface Listener {
+
+        void progress(RolloutResult result);
+    }
+
+    private final ForkJoinPool pool;
+    private final GameRandom random;
+    private Policy policy = Policy.RANDOM;
+    private int horizon = DEFAULT_HORIZON;
+    private long progressMillis = DEFAULT_PROGRESS_MILLIS;
+    private long budgetMillis = DEFAULT_BUDGET_MILLIS;
+
+    /**
+     * Creates a solver that uses all the available processors
+     */
+    public MonteCarloSolver() {
+        this(Runtime.getRuntime().availableProcessors(), GameRandom.newSeed());
+    }
+
+    /**
+     * @param threads number of worker threads
+     * @param seed of the generators of the workers
+     */
+    public MonteCarloSolver(int threads, long seed) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("At least one thread is required: " + threads);
+        }
+        this.pool = new ForkJoinPool(threads);
+        this.random = new GameRandom(seed);
+    }
+
+    public int getThreads() {
+        return pool.getParallelism();
+    }
+
+    public Policy getPolicy() {
+        return policy;
+    }
+
+    public void setPolicy(Policy policy) {
+        this.policy = policy;
+    }
+
+    public int getHorizon() {
+        return horizon;
+    }
+
+    /**
+     * @param horizon maximum number of movements of each rollout
+     */
+    public void setHorizon(int horizon) {
+        if (horizon < 1) {
+            throw new IllegalArgumentException("Horizon must be at least 1: " + horizon);
+        }
+        this.horizon = horizon;
+    }
+
+    /**
+     * @param progressMillis time between progress snapshots
+     */
+    public void setProgressMillis(long progressMillis) {
+        if (progressMillis < 1) {
+            throw new IllegalArgumentException("Progress interval must be at least 1 ms: " + progressMillis);
+        }
+        this.progressMillis = progressMillis;
+    }
+
+    public long getBudgetMillis() {
+        return budgetMillis;
+    }
+
+    /**
+     * @param budgetMillis time to spend by {@link #findBestMoveInterruptibly(long)}
+     */
+    public void setBudgetMillis(long budgetMillis) {
+        if (budgetMillis < 1) {
+            throw new IllegalArgumentException("Budget must be at least 1 ms: " + budgetMillis);
+        }
+        this.budgetMillis = budgetMillis;
+    }
+
+    /**
+     * Searches with the budget of {@link #getBudgetMillis()}
+     * @param board a 4x4 bitboard
+     * @return the best movement found, or null if no tile can move
+     * @throws InterruptedException if the calling thread is interrupted
+     */
+    @Override
+    public Direction findBestMoveInterruptibly(long board) throws InterruptedException {
+        return findBestMove(board, budgetMillis);
+    }
+
+    /**
+     * @param board a 4x4 bitboard
+     * @param budgetMillis time to spend
+     * @return the best movement found, or null if no tile can move
+     * @throws InterruptedException if the calling thread is interrupted
+     */
+    public Direction findBestMove(long board, long budgetMillis) throws InterruptedException {
+        return analyze(board, budgetMillis, null).getBestMove();
+    }
+
+    /**
+     * Plays rollouts after each legal movement of the board until the budget
+     * is spent
+     * @param board a 4x4 bitboard
+     * @param budgetMillis time to spend
+     * @param listener of the progress snapshots, or null
+     * @return the final statistics
+     * @throws InterruptedException if the calling thread is interrupted: the
+     * rollouts are stopped
+     */
+    public synchronized RolloutResult analyze(long board, long budgetMillis, Listener listener)
+            throws InterruptedException {
+        final long start = System.nanoTime();
+        final long[] after = new long[DIRECTIONS.length];
+        final int[] points = new int[DIRECTIONS.length];
+        final int[] legal = new int[DIRECTIONS.length];
+        int count = 0;
+        for (Direction direction : DIRECTIONS) {
+            int d = direction.ordinal();
+            after[d] = MoveTables.move(board, direction);
+            points[d] = MoveTables.score(board, direction);
+            if (after[d] != board) {
+                legal[count++] = d;
+            }
+        }
+        // rollouts, sum of points and survivors of each direction
+        final AtomicLongArray stats = new AtomicLongArray(3 * DIRECTIONS.length);
+        if (count == 0) {
+            return snapshot(stats, after, points, board, start, true);
+        }
+
+        final int legalCount = count;
+        final int rolloutHorizon = horizon;
+        final Policy rolloutPolicy = policy;
+        final AtomicBoolean stop = new AtomicBoolean();
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(getThreads());
+        for (int t = 0; t < getThreads(); t++) {
+            final GameRandom workerRandom = random.split();
+            final int offset = t;
+            tasks.add(pool.submit(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = offset; !stop.get(); i++) {
+                        int d = legal[i % legalCount];
+                        long result = rollout(after[d], workerRandom, rolloutPolicy, rolloutHorizon);
+                        stats.addAndGet(3 * d + 1, result >> 1);
+                        if ((result & 1) != 0) {
+                            stats.incrementAndGet(3 * d + 2);
+                        }
+                        stats.incrementAndGet(3 * d);
+                    }
+                }
+            }));
+        }
+
+        try {
+            long deadline = start + TimeUnit.MILLISECONDS.toNanos(budgetMillis);
+            long remaining;
+            while ((remaining = deadline - System.nanoTime()) > 0) {
+                TimeUnit.NANOSECONDS.sleep(Math.min(remaining, TimeUnit.MILLISECONDS.toNanos(progressMillis)));
+                if (listener != null && deadline - System.nanoTime() > 0) {
+                    listener.progress(snapshot(stats, after, points, board, start, false));
+                }
+            }
+        } finally {
+            stop.set(true);
+            for (ForkJoinTask<?> task : tasks) {
+                task.quietlyJoin();
+            }
+        }
+        RolloutResult result = snapshot(stats, after, points, board, start, true);
+        if (listener != null) {
+            listener.progress(result);
+        }
+        return result;
+    }
+
+    @Override
+    public void close() {
+        pool.shutdownNow();
+    }
+
+    private static RolloutResult snapshot(AtomicLongArray stats, long[] after, int[] points, long board,
+            long start, boolean complete) {
+        long[] rollouts = new long[DIRECTIONS.length];
+        double[] expectedScore = new double[DIRECTIONS.length];
+        double[] survival = new double[DIRECTIONS.length];
+        for (int d = 0; d < DIRECTIONS.length; d++) {
+            if (after[d] == board) {
+                expectedScore[d] = Double.NaN;
+                survival[d] = Double.NaN;
+                continue;
+            }
+            // survivors and points are added before the count of rollouts
+            long n = stats.get(3 * d);
+            rollouts[d] = n;
+            expectedScore[d] = points[d] + (n == 0 ? 0 : (double) stats.get(3 * d + 1) / n);
+            survival[d] = n == 0 ? 1 : Math.min(1, (double) stats.get(3 * d + 2) / n);
+        }
+        return new RolloutResult(rollouts, expectedScore, survival, System.nanoTime() - start, complete);
+    }
+
+    /**
+     * Plays from the board after a movement, adding a new tile before each
+     * movement of the policy
+     * @return the points of the rollout shifted left by one, and 1 in the
+     * lowest bit if it didn't lose within the horizon
+     */
+    static long rollout(long board, GameRandom random, Policy policy, int horizon) {
+        long total = 0;
+        for (int moves = 0; moves < horizon; moves++) {
+            board = random.spawn(board);
+            Direction best = null;
+            long bestAfter = board;
+            int bestPoints = -1, legal = 0;
+            int start = random.nextInt(DIRECTIONS.length);
+            for (int i = 0; i < DIRECTIONS.length; i++) {
+                Direction direction = DIRECTIONS[(start + i) % DIRECTIONS.length];
+                long moved = MoveTables.move(board, direction);
+                if (moved == board) {
+                    continue;
+                }
+                legal++;
+                if (policy == Policy.GREEDY) {
+                    int score = MoveTables.score(board, direction);
+                    if (score > bestPoints) {
+                        best = direction;
+                        bestAfter = moved;
+                        bestPoints = score;
+                    }
+                } else if (random.nextInt(legal) == 0) {
+                    best = direction;
+                    bestAfter = moved;
+                }
+            }
+            if (best == null) {
+                return total << 1;
+            }
+            if (policy == Policy.GREEDY) {
+                total += bestPoints;
+            } else {
+                total += MoveTables.score(board, best);
+            }
+            board = bestAfter;
+        }
+        return (total << 1) | 1;
+    }
+}
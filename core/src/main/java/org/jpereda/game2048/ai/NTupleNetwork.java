@@ -0,0 +1,260 @@
+/*
+ * Copyright (C) 2013-2019 2048FX
+ * Jose Pereda, Bruno Borges & Jens Deters
+ * All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpereda.game2048.ai;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+
+import static org.jpereda.game2048.engine.BitBoard.CELLS;
+import static org.jpereda.game2048.engine.BitBoard.SIZE;
+
+/**
+ * Evaluator learned by self-play: the value of a board is the sum of the
+ * weights of a few groups of cells (tuples), indexed by the exponents of
+ * their tiles. Each tuple is also applied to the 8 rotations and reflections
+ * of the board, sharing its weights.
+ *
+ * A tuple of n cells has 16^n weights, kept off-heap in a direct buffer per
+ * tuple, so large networks don't press on the garbage collector, or mapped
+ * from a {@link ModelFile}, so they can be used without reading them first.
+ * Weights are read and written without locks: concurrent updates from
+ * several training threads may lose a few increments, which the training
+ * tolerates.
+ *
+ * @author jpereda
+ */
+public class NTupleNetwork implements Evaluator {
+
+    /**
+     * 2 lines and 3 squares of 4 cells: 5 x 65536 weights, 1.3 MB
+     */
+    public static final int[][] SMALL = {
+        {0, 1, 2, 3}, {4, 5, 6, 7},
+        {0, 1, 4, 5}, {1, 2, 5, 6}, {5, 6, 9, 10}
+    };
+
+    /**
+     * 2 lines and 2 rectangles of 6 cells: 4 x 16^6 weights, 268 MB
+     */
+    public static final int[][] LARGE = {
+        {0, 1, 2, 3, 4, 5}, {4, 5, 6, 7, 8, 9},
+        {0, 1, 2, 4, 5, 6}, {4, 5, 6, 8, 9, 10}
+    };
+
+    public static final int SYMMETRIES = 8;
+    public static final int MAX_TUPLE_CELLS = 7;
+
+    private final int[][] tuples;
+    private final int[][] shifts;
+    private final ByteBuffer[] data;
+    private final FloatBuffer[] weights;
+
+    /**
+     * Creates a network with all its weights set to 0
+     * @param tuples cells of each tuple, from 0 to 15, like {@link #SMALL}
+     */
+    public NTupleNetwork(int[][] tuples) {
+        this(tuples, allocate(tuples));
+    }
+
+    NTupleNetwork(int[][] tuples, ByteBuffer[] data) {
+        validate(tuples);
+        if (data.length != tuples.length) {
+            throw new IllegalArgumentException("Expected " + tuples.length + " weight tables, found " + data.length);
+        }
+        this.data = data;
+        this.weights = new FloatBuffer[data.length];
+        for (int t = 0; t < tuples.length; t++) {
+            if (data[t].capacity() != 4 * getWeightCount(tuples[t].length)) {
+                throw new IllegalArgumentException("Wrong number of weights for tuple " + t + ": " + data[t].capacity() / 4);
+            }
+            weights[t] = data[t].order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer();
+        }
+        this.tuples = new int[tuples.length][];
+        for (int t = 0; t < tuples.length; t++) {
+            this.tuples[t] = tuples[t].clone();
+        }
+        this.shifts = new int[tuples.length * SYMMETRIES][];
+        for (int t = 0; t < tuples.length; t++) {
+            for (int s = 0; s < SYMMETRIES; s++) {
+                int[] shift = new int[tuples[t].length];
+                for (int k = 0; k < shift.length; k++) {
+                    shift[k] = symmetry(tuples[t][k], s) << 2;
+                }
+                shifts[t * SYMMETRIES + s] = shift;
+            }
+        }
+    }
+
+    public int getTupleCount() {
+        return tuples.length;
+    }
+
+    public int[] getTuple(int tuple) {
+        return tuples[tuple].clone();
+    }
+
+    /**
+     * @return number of weights read to evaluate a board
+     */
+    public int getFeatureCount() {
+        return tuples.length * SYMMETRIES;
+    }
+
+    /**
+     * @return the learned value of the board, the points expected from it
+     * until the end of the game
+     */
+    public float value(long board) {
+        float value = 0f;
+        for (int t = 0; t < tuples.length; t++) {
+            FloatBuffer w = weights[t];
+            for (int s = t * SYMMETRIES, end = s + SYMMETRIES; s < end; s++) {
+                value += w.get(index(board, shifts[s]));
+            }
+        }
+        return value;
+    }
+
+    @Override
+    public float evaluate(long board) {
+        return Math.max(value(board), 1f);
+    }
+
+    /**
+     * Adds delta to all the weights read to evaluate the board
+     * @param board a 4x4 bitboard
+     * @param delta to add to each weight
+     */
+    public void update(long board, float delta) {
+        for (int t = 0; t < tuples.length; t++) {
+            FloatBuffer w = weights[t];
+            for (int s = t * SYMMETRIES, end = s + SYMMETRIES; s < end; s++) {
+                int index = index(board, shifts[s]);
+                w.put(index, w.get(index) + delta);
+            }
+        }
+    }
+
+    /**
+     * @return true if the weights can't be updated, as they are mapped read
+     * only from a model file
+     */
+    public boolean isReadOnly() {
+        return weights[0].isReadOnly();
+    }
+
+    /**
+     * Writes the network to a file, in the {@link ModelFile} format
+     * @param file to write to
+     * @throws IOException if the file can't be written
+     */
+    public void store(File file) throws IOException {
+        ModelFile.write(file, tuples, data);
+    }
+
+    /**
+     * Maps a model file read only. Only its header is read: the pages of the
+     * weights are read by the operating system when a board needs them, and
+     * are shared by all the networks mapping the same file.
+     * @param file to map
+     * @return the network, read only
+     * @throws IOException if the file can't be read, or isn't a valid model
+     */
+    public static NTupleNetwork map(File file) throws IOException {
+        ModelFile model = ModelFile.map(file);
+        return create(model.getTuples(), model.getWeights());
+    }
+
+    /**
+     * Reads a model file into new off-heap buffers, so the network can be
+     * trained without changing the file
+     * @param file to read
+     * @return the network
+     * @throws IOException if the file can't be read, or isn't a valid model
+     */
+    public static NTupleNetwork load(File file) throws IOException {
+        ModelFile model = ModelFile.read(file);
+        return create(model.getTuples(), model.getWeights());
+    }
+
+    private static NTupleNetwork create(int[][] tuples, ByteBuffer[] data) throws IOException {
+        try {
+            return new NTupleNetwork(tuples, data);
+        } catch (IllegalArgumentException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    private static int index(long board, int[] shift) {
+        int index = 0;
+        for (int k = 0; k < shift.length; k++) {
+            index |= (int) ((board >>> shift[k]) & 0xF) << (k << 2);
+        }
+        return index;
+    }
+
+    /**
+     * @return the cell that the given cell goes to in one of the 8
+     * rotations and reflections of the board
+     */
+    private static int symmetry(int cell, int symmetry) {
+        int x = cell % SIZE, y = cell / SIZE;
+        if ((symmetry & 1) != 0) {
+            x = SIZE - 1 - x;
+        }
+        if ((symmetry & 2) != 0) {
+            y = SIZE - 1 - y;
+        }
+        return (symmetry & 4) != 0 ? y + SIZE * x : x + SIZE * y;
+    }
+
+    static int getWeightCount(int tupleCells) {
+        return 1 << (tupleCells << 2);
+    }
+
+    private static void validate(int[][] tuples) {
+        if (tuples.length == 0) {
+            throw new IllegalArgumentException("A network needs at least one tuple");
+        }
+        for (int[] tuple : tuples) {
+            if (tuple.length == 0 || tuple.length > MAX_TUPLE_CELLS) {
+                throw new IllegalArgumentException("Tuples must have between 1 and " + MAX_TUPLE_CELLS + " cells");
+            }
+            for (int cell : tuple) {
+                if (cell < 0 || cell >= CELLS) {
+                    throw new IllegalArgumentException("Cell out of range: " + cell);
+                }
+            }
+        }
+    }
+
+    private static ByteBuffer[] allocate(int[][] tuples) {
+        validate(tuples);
+        ByteBuffer[] data = new ByteBuffer[tuples.length];
+        for (int t = 0; t < tuples.length; t++) {
+            data[t] = ByteBuffer.allocateDirect(getWeightCount(tuples[t].length) * 4)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+        }
+        return data;
+    }
+}
@@ -0,0 +1,333 @@
+/*
+ * Copyright (C) 2013-2019 2048FX
+ * Jose Pereda, Bruno Borges & Jens Deters
+ * All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpereda.game2048.ai;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.jpereda.game2048.Direction;
+import org.jpereda.game2048.engine.BitBoard;
+import org.jpereda.game2048.engine.GameRandom;
+import org.jpereda.game2048.engine.MoveTables;
+
+/**
+ * Trains a {@link NTupleNetwork} by temporal difference learning: it plays
+ * games choosing the movement with the highest points plus learned value of
+ * the board after the movement (before the new tile), and moves the value of
+ * each of those boards towards the points and value of the next one.
+ *
+ * All the threads train the same network without locks. Every few games the
+ * network is saved to a checkpoint file, written to a temporary file first,
+ * so training can be stopped at any time and resumed from the last checkpoint.
+ *
+ * @author jpereda
+ */
+public class NTupleTrainer {
+
+    public static final float DEFAULT_LEARNING_RATE = 0.1f;
+    public static final int DEFAULT_CHECKPOINT_INTERVAL = 10000;
+
+    private static final Direction[] DIRECTIONS = Direction.values();
+    private static final int[] GOALS = {2048, 4096, 8192, 16384, 32768};
+
+    private final NTupleNetwork network;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private float learningRate = DEFAULT_LEARNING_RATE;
+    private long seed = GameRandom.newSeed();
+    private int checkpointInterval = DEFAULT_CHECKPOINT_INTERVAL;
+    private File checkpoint;
+    private PrintStream progress;
+
+    private final Object statsLock = new Object();
+    private long intervalScore;
+    private int intervalGames;
+    private final int[] intervalGoals = new int[GOALS.length];
+
+    public NTupleTrainer(NTupleNetwork network) {
+        this.network = network;
+    }
+
+    public NTupleNetwork getNetwork() {
+        return network;
+    }
+
+    public void setThreads(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Threads must be at least 1: " + threads);
+        }
+        this.threads = threads;
+    }
+
+    /**
+     * @param learningRate fraction of the error corrected on each update,
+     * shared among all the weights of the board
+     */
+    public void setLearningRate(float learningRate) {
+        if (learningRate <= 0f || learningRate > 1f) {
+            throw new IllegalArgumentException("Learning rate must be in (0, 1]: " + learningRate);
+        }
+        this.learningRate = learningRate;
+    }
+
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * @param checkpoint file to save the network to, or null
+     * @param interval number of games between checkpoints
+     */
+    public void setCheckpoint(File checkpoint, int interval) {
+        if (interval < 1) {
+            throw new IllegalArgumentException("Checkpoint interval must be at least 1: " + interval);
+        }
+        this.checkpoint = checkpoint;
+        this.checkpointInterval = interval;
+    }
+
+    /**
+     * @param progress stream to report the average score and the rate of
+     * goals reached, after each checkpoint interval, or null
+     */
+    public void setProgress(PrintStream progress) {
+        this.progress = progress;
+    }
+
+    /**
+     * Plays the given number of training games, and saves a last checkpoint
+     * @param games to play
+     * @throws IOException if a checkpoint can't be saved
+     * @throws InterruptedException if interrupted while waiting for the threads
+     */
+    public void train(final int games) throws IOException, InterruptedException {
+        final AtomicInteger next = new AtomicInteger();
+        final float rate = learningRate / network.getFeatureCount();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>(threads);
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws IOException {
+                        int game;
+                        while ((game = next.getAndIncrement()) < games) {
+                            long board = playGame(new GameRandom(seed + game), rate);
+                            finished(game + 1, board);
+                        }
+                        return null;
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof IOException) {
+                        throw (IOException) e.getCause();
+                    }
+                    throw new IllegalStateException("Training failed", e.getCause());
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        saveCheckpoint();
+    }
+
+    /**
+     * Plays a training game, updating the network after each movement
+     * @return the score of the game in the high 32 bits and the max tile in
+     * the low bits
+     */
+    private long playGame(GameRandom random, float rate) {
+        long board = random.spawn(random.spawn(0L));
+        int score = 0;
+        boolean first = true;
+        long previous = 0L;
+        float previousValue = 0f;
+        while (true) {
+            Direction best = null;
+            long bestAfter = 0L;
+            int bestPoints = 0;
+            float bestValue = 0f, bestTotal = Float.NEGATIVE_INFINITY;
+            for (Direction direction : DIRECTIONS) {
+                long after = MoveTables.move(board, direction);
+                if (after == board) {
+                    continue;
+                }
+                int points = MoveTables.score(board, direction);
+                float value = network.value(after);
+                if (points + value > bestTotal) {
+                    best = direction;
+                    bestAfter = after;
+                    bestPoints = points;
+                    bestValue = value;
+                    bestTotal = points + value;
+                }
+            }
+            if (best == null) {
+                break;
+            }
+            if (!first) {
+                network.update(previous, rate * (bestTotal - previousValue));
+            }
+            first = false;
+            previous = bestAfter;
+            previousValue = bestValue;
+            score += bestPoints;
+            board = random.spawn(bestAfter);
+        }
+        if (!first) {
+            network.update(previous, -rate * previousValue);
+        }
+        return ((long) score << 32) | BitBoard.toValue(BitBoard.getMaxExponent(board));
+    }
+
+    private void finished(int game, long result) throws IOException {
+        boolean save = false;
+        synchronized (statsLock) {
+            intervalScore += result >>> 32;
+            intervalGames++;
+            int maxTile = (int) result;
+            for (int i = 0; i < GOALS.length; i++) {
+                if (maxTile >= GOALS[i]) {
+                    intervalGoals[i]++;
+                }
+            }
+            if (game % checkpointInterval == 0) {
+                report(game);
+                save = true;
+            }
+        }
+        if (save) {
+            saveCheckpoint();
+        }
+    }
+
+    private void report(int game) {
+        if (progress != null && intervalGames > 0) {
+            StringBuilder sb = new StringBuilder(String.format(Locale.ROOT, "%d games, mean score %.1f",
+                    game, (double) intervalScore / intervalGames));
+            for (int i = 0; i < GOALS.length; i++) {
+                sb.append(String.format(Locale.ROOT, ", %d %.2f%%", GOALS[i], 100d * intervalGoals[i] / intervalGames));
+            }
+            progress.println(sb);
+        }
+        intervalScore = 0;
+        intervalGames = 0;
+        for (int i = 0; i < GOALS.length; i++) {
+            intervalGoals[i] = 0;
+        }
+    }
+
+    private synchronized void saveCheckpoint() throws IOException {
+        if (checkpoint == null) {
+            return;
+        }
+        File temp = new File(checkpoint.getPath() + ".tmp");
+        network.store(temp);
+        // an atomic move never leaves the run without a checkpoint
+        try {
+            Files.move(temp.toPath(), checkpoint.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp.toPath(), checkpoint.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static void usage() {
+        System.err.println("Usage: NTupleTrainer -model file [-games n] [-network small|large] [-rate r]");
+        System.err.println("                     [-seed s] [-threads t] [-interval n]");
+    }
+
+    /**
+     * Trains a network, resuming from the model file if it exists
+     * @param args command line options
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        File model = null;
+        int games = 100000, interval = DEFAULT_CHECKPOINT_INTERVAL, threads = 0;
+        int[][] tuples = NTupleNetwork.SMALL;
+        float rate = DEFAULT_LEARNING_RATE;
+        Long seed = null;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                String arg = args[i];
+                if (i + 1 == args.length) {
+                    throw new IllegalArgumentException("Missing value for " + arg);
+                }
+                String value = args[++i];
+                switch (arg) {
+                    case "-model": model = new File(value); break;
+                    case "-games": games = Integer.parseInt(value); break;
+                    case "-network":
+                        switch (value.toLowerCase(Locale.ROOT)) {
+                            case "small": tuples = NTupleNetwork.SMALL; break;
+                            case "large": tuples = NTupleNetwork.LARGE; break;
+                            default: throw new IllegalArgumentException("Unknown network " + value);
+                        }
+                        break;
+                    case "-rate": rate = Float.parseFloat(value); break;
+                    case "-seed": seed = Long.parseLong(value); break;
+                    case "-threads": threads = Integer.parseInt(value); break;
+                    case "-interval": interval = Integer.parseInt(value); break;
+                    default: throw new IllegalArgumentException("Unknown option " + arg);
+                }
+            }
+            if (model == null) {
+                throw new IllegalArgumentException("Missing -model");
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            usage();
+            System.exit(1);
+        }
+
+        NTupleNetwork network;
+        if (model.exists()) {
+            System.out.println("Resuming from " + model);
+            network = NTupleNetwork.load(model);
+        } else {
+            network = new NTupleNetwork(tuples);
+        }
+        NTupleTrainer trainer = new NTupleTrainer(network);
+        trainer.setLearningRate(rate);
+        trainer.setCheckpoint(model, interval);
+        trainer.setProgress(System.out);
+        if (threads > 0) {
+            trainer.setThreads(threads);
+        }
+        if (seed != null) {
+            trainer.setSeed(seed);
+        }
+        trainer.train(games);
+    }
+}
@@ -0,0 +1,410 @@
+/*
+ * Copyright (C) 2013-2019 2048FX
+ * Jose Pereda, Bruno Borges & Jens Deters
+ * All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpereda.game2048.ai;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import org.jpereda.game2048.Direction;
+import org.jpereda.game2048.engine.BitBoard;
+import org.jpereda.game2048.engine.MoveTables;
+
+/**
+ * Expectimax search, as {@link ExpectimaxSolver}, running on a fork/join
+ * pool.
+ *
+ * The four movements of the root, and the new tiles of the chance nodes
+ * below, are searched as separate tasks. Subtrees are only split while they
+ * are deep and likely enough, and while the worker has few queued tasks,
+ * else they are searched sequentially, so small subtrees don't pay for
+ * the tasks.
+ *
+ * By default, all the workers share one {@link SharedTranspositionTable},
+ * so a chance node evaluated by a thread is not searched again by others.
+ *
+ * Only one search runs at a time: concurrent calls to
+ * {@link #findBestMove(long)} wait for each other. A search started with
+ * {@link #findBestMoveInterruptibly(long)} is stopped on all the workers
+ * when the calling thread is interrupted.
+ *
+ * @author jpereda
+ */
+public class ParallelExpectimaxSolver implements HintEngine, AutoCloseable {
+
+    public static final int DEFAULT_DEPTH = 5;
+    public static final int DEFAULT_SPLIT_DEPTH = 2;
+    public static final float DEFAULT_SPLIT_PROBABILITY = 0.001f;
+    public static final int DEFAULT_LOCAL_TABLE_BITS = 18;
+
+    // a worker with more queued tasks than this doesn't split its subtree
+    private static final int MAX_SURPLUS_TASKS = 3;
+
+    private final Evaluator evaluator;
+    private final ForkJoinPool pool;
+    private final TranspositionTable sharedTable;
+    private final ThreadLocal<ExpectimaxSearch> searches;
+
+    private int depth = DEFAULT_DEPTH;
+    private float minProbability = ExpectimaxSolver.DEFAULT_MIN_PROBABILITY;
+    private int splitDepth = DEFAULT_SPLIT_DEPTH;
+    private float splitProbability = DEFAULT_SPLIT_PROBABILITY;
+    private long nodes;
+    private int generation;
+    // polled by the workers, to abort the current search
+    private volatile boolean stopped;
+
+    /**
+     * Creates a solver that uses all the available processors
+     */
+    public ParallelExpectimaxSolver() {
+        this(new TableEvaluator(), Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param evaluator of the leaves, it has to give the same value to
+     * symmetric boards
+     * @param threads maximum number of worker threads
+     */
+    public ParallelExpectimaxSolver(Evaluator evaluator, int threads) {
+        this(evaluator, threads, new SharedTranspositionTable());
+    }
+
+    /**
+     * @param evaluator of the leaves
+     * @param threads maximum number of worker threads
+     * @param sharedTable transposition table shared by all the workers, it
+     * has to be thread safe. If null, each worker has its own table
+     */
+    public ParallelExpectimaxSolver(Evaluator evaluator, int threads, TranspositionTable sharedTable) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("At least one thread is required: " + threads);
+        }
+        this.evaluator = evaluator;
+        this.pool = new ForkJoinPool(threads);
+        this.sharedTable = sharedTable;
+        this.searches = new ThreadLocal<ExpectimaxSearch>() {
+            @Override
+            protected ExpectimaxSearch initialValue() {
+                return new WorkerSearch(evaluator, sharedTable != null ? sharedTable :
+                        new LocalTranspositionTable(DEFAULT_LOCAL_TABLE_BITS));
+            }
+        };
+    }
+
+    public Evaluator getEvaluator() {
+        return evaluator;
+    }
+
+    /**
+     * @return the maximum number of worker threads
+     */
+    public int getThreads() {
+        return pool.getParallelism();
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * @param depth number of movements to look ahead, at least 1
+     */
+    public void setDepth(int depth) {
+        if (depth < 1) {
+            throw new IllegalArgumentException("Depth must be at least 1: " + depth);
+        }
+        this.depth = depth;
+    }
+
+    public float getMinProbability() {
+        return minProbability;
+    }
+
+    /**
+     * @param minProbability chance nodes less likely than this are not
+     * expanded, but evaluated
+     */
+    public void setMinProbability(float minProbability) {
+        this.minProbability = minProbability;
+    }
+
+    public int getSplitDepth() {
+        return splitDepth;
+    }
+
+    /**
+     * @param splitDepth subtrees with less remaining movements than this
+     * are searched sequentially
+     */
+    public void setSplitDepth(int splitDepth) {
+        this.splitDepth = splitDepth;
+    }
+
+    public float getSplitProbability() {
+        return splitProbability;
+    }
+
+    /**
+     * @param splitProbability subtrees less likely than this are searched
+     * sequentially
+     */
+    public void setSplitProbability(float splitProbability) {
+        this.splitProbability = splitProbability;
+    }
+
+    /**
+     * @return the number of nodes visited by the last search
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * @param board a 4x4 bitboard
+     * @return the movement with the highest expected value, or null if no
+     * tile can move
+     */
+    public synchronized Direction findBestMove(long board) {
+        RootTask root = newSearch(board);
+        pool.invoke(root);
+        nodes = root.nodes;
+        return root.best;
+    }
+
+    /**
+     * As {@link #findBestMove(long)}, but the search can be cancelled by
+     * interrupting the calling thread, that waits for the workers
+     * @param board a 4x4 bitboard
+     * @return the movement with the highest expected value, or null if no
+     * tile can move
+     * @throws InterruptedException if the thread was interrupted during the
+     * search
+     */
+    @Override
+    public synchronized Direction findBestMoveInterruptibly(long board) throws InterruptedException {
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+        RootTask root = newSearch(board);
+        pool.execute(root);
+        try {
+            root.get();
+        } catch (InterruptedException e) {
+            stopped = true;
+            // the workers return at once, before another search can start
+            root.quietlyJoin();
+            nodes = root.nodes;
+            throw e;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Error in the search", e.getCause());
+        }
+        nodes = root.nodes;
+        return root.best;
+    }
+
+    private RootTask newSearch(long board) {
+        generation++;
+        stopped = false;
+        if (sharedTable != null) {
+            sharedTable.clear();
+        }
+        return new RootTask(board);
+    }
+
+    /**
+     * Stops the worker threads. The solver can't be used afterwards
+     */
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+
+    private ExpectimaxSearch getSearch() {
+        WorkerSearch search = (WorkerSearch) searches.get();
+        if (search.generation != generation) {
+            // first task of a new search on this thread
+            search.generation = generation;
+            if (sharedTable == null) {
+                search.getTable().clear();
+            }
+        }
+        search.reset(minProbability, true);
+        return search;
+    }
+
+    private boolean split(int depth, float probability) {
+        return depth >= splitDepth && probability >= splitProbability
+                && ForkJoinTask.getSurplusQueuedTaskCount() <= MAX_SURPLUS_TASKS;
+    }
+
+    private final class WorkerSearch extends ExpectimaxSearch {
+
+        private int generation;
+
+        WorkerSearch(Evaluator evaluator, TranspositionTable table) {
+            super(evaluator, table);
+        }
+
+        @Override
+        boolean isStopRequested() {
+            return stopped;
+        }
+    }
+
+    @SuppressWarnings("serial")
+    private abstract class NodeTask extends RecursiveAction {
+
+        final long board;
+        final int depth;
+        final float probability;
+        float value;
+        long nodes;
+
+        NodeTask(long board, int depth, float probability) {
+            this.board = board;
+            this.depth = depth;
+            this.probability = probability;
+        }
+    }
+
+    @SuppressWarnings("serial")
+    private final class RootTask extends RecursiveAction {
+
+        private final long board;
+        private Direction best;
+        private long nodes;
+
+        RootTask(long board) {
+            this.board = board;
+        }
+
+        @Override
+        protected void compute() {
+            List<ChanceTask> tasks = new ArrayList<>(ExpectimaxSearch.DIRECTIONS.length);
+            List<Direction> directions = new ArrayList<>(ExpectimaxSearch.DIRECTIONS.length);
+            for (Direction direction : ExpectimaxSearch.DIRECTIONS) {
+                long moved = MoveTables.move(board, direction);
+                if (moved != board) {
+                    tasks.add(new ChanceTask(moved, depth - 1, 1f));
+                    directions.add(direction);
+                }
+            }
+            invokeAll(tasks);
+            float bestValue = -1f;
+            for (int i = 0; i < tasks.size(); i++) {
+                ChanceTask task = tasks.get(i);
+                nodes += task.nodes;
+                if (task.value > bestValue) {
+                    bestValue = task.value;
+                    best = directions.get(i);
+                }
+            }
+        }
+    }
+
+    @SuppressWarnings("serial")
+    private final class ChanceTask extends NodeTask {
+
+        ChanceTask(long board, int depth, float probability) {
+            super(board, depth, probability);
+        }
+
+        @Override
+        protected void compute() {
+            if (stopped) {
+                return;
+            }
+            ExpectimaxSearch search = getSearch();
+            if (search.isLeaf(depth, probability) || !split(depth, probability)) {
+                value = search.chanceNode(board, depth, probability);
+                nodes = search.getNodes();
+                return;
+            }
+            TranspositionTable table = search.getTable();
+            float cached = table.get(board, depth);
+            if (cached != TranspositionTable.MISSING) {
+                value = cached;
+                nodes = 1;
+                return;
+            }
+
+            int empty = BitBoard.countEmpty(board);
+            float cellProbability = probability / empty;
+            List<MaxTask> tasks = new ArrayList<>(2 * empty);
+            for (int cell = 0; cell < BitBoard.CELLS; cell++) {
+                if (BitBoard.getExponent(board, cell) == 0) {
+                    tasks.add(new MaxTask(BitBoard.setExponent(board, cell, 1), depth,
+                            cellProbability * ExpectimaxSearch.PROBABILITY_2));
+                    tasks.add(new MaxTask(BitBoard.setExponent(board, cell, 2), depth,
+                            cellProbability * ExpectimaxSearch.PROBABILITY_4));
+                }
+            }
+            invokeAll(tasks);
+            float sum = 0f;
+            nodes = 1;
+            for (int i = 0; i < tasks.size(); i += 2) {
+                sum += ExpectimaxSearch.PROBABILITY_2 * tasks.get(i).value;
+                sum += ExpectimaxSearch.PROBABILITY_4 * tasks.get(i + 1).value;
+                nodes += tasks.get(i).nodes + tasks.get(i + 1).nodes;
+            }
+            value = sum / empty;
+            if (!stopped) {
+                // the worker may have changed while waiting for the subtasks
+                getSearch().getTable().put(board, depth, value);
+            }
+        }
+    }
+
+    @SuppressWarnings("serial")
+    private final class MaxTask extends NodeTask {
+
+        MaxTask(long board, int depth, float probability) {
+            super(board, depth, probability);
+        }
+
+        @Override
+        protected void compute() {
+            if (stopped) {
+                return;
+            }
+            if (!split(depth, probability)) {
+                ExpectimaxSearch search = getSearch();
+                value = search.maxNode(board, depth, probability);
+                nodes = search.getNodes();
+                return;
+            }
+            List<ChanceTask> tasks = new ArrayList<>(ExpectimaxSearch.DIRECTIONS.length);
+            for (Direction direction : ExpectimaxSearch.DIRECTIONS) {
+                long moved = MoveTables.move(board, direction);
+                if (moved != board) {
+                    tasks.add(new ChanceTask(moved, depth - 1, probability));
+                }
+            }
+            invokeAll(tasks);
+            nodes = 1;
+            for (ChanceTask task : tasks) {
+                value = Math.max(value, task.value);
+                nodes += task.nodes;
+            }
+        }
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright (C) 2013-2019 2048FX
+ * Jose Pereda, Bruno Borges & Jens Deters
+ * All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpereda.game2048.ai;
+
+import org.jpereda.game2048.Direction;
+
+/**
+ * Statistics of the rollouts played by a {@link MonteCarloSolver} after each
+ * movement of a board. Snapshots taken later during the same analysis
+ * include all the rollouts of the previous ones.
+ *
+ * @author jpereda
+ */
+public final class RolloutResult {
+
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    private final long[] rollouts;
+    private final double[] expectedScore;
+    private final double[] survival;
+    private final long elapsedNanos;
+    private final boolean complete;
+
+    RolloutResult(long[] rollouts, double[] expectedScore, double[] survival, long elapsedNanos, boolean complete) {
+        this.rollouts = rollouts;
+        this.expectedScore = expectedScore;
+        this.survival = survival;
+        this.elapsedNanos = elapsedNanos;
+        this.complete = complete;
+    }
+
+    /**
+     * @return true if the movement changes the board
+     */
+    public boolean isLegal(Direction direction) {
+        return !Double.isNaN(expectedScore[direction.ordinal()]);
+    }
+
+    /**
+     * @return number of rollouts played after the movement
+     */
+    public long getRollouts(Direction direction) {
+        return rollouts[direction.ordinal()];
+    }
+
+    public long getTotalRollouts() {
+        long total = 0;
+        for (long count : rollouts) {
+            total += count;
+        }
+        return total;
+    }
+
+    /**
+     * @return the points of the movement plus the average points of the
+     * rollouts after it, NaN if the movement is not legal, or 0 if there
+     * are no rollouts yet
+     */
+    public double getExpectedScore(Direction direction) {
+        return expectedScore[direction.ordinal()];
+    }
+
+    /**
+     * @return the fraction of the rollouts after the movement that didn't
+     * end the game within the horizon, or NaN if the movement is not legal
+     */
+    public double getSurvivalProbability(Direction direction) {
+        return survival[direction.ordinal()];
+    }
+
+    /**
+     * @return the legal movement with the highest expected score, or null
+     * if no tile can move
+     */
+    public Direction getBestMove() {
+        Direction best = null;
+        for (Direction direction : DIRECTIONS) {
+            if (isLegal(direction) && (best == null || 
+                    getExpectedScore(direction) > getExpectedScore(best))) {
+                best = direction;
+            }
+        }
+        return best;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * @return true if the analysis has finished, false for a progress
+     * snapshot
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("RolloutResult{");
+        for (Direction direction : DIRECTIONS) {
+            if (isLegal(direction)) {
+                sb.append(direction.name()).append(": score=").append(Math.round(getExpectedScore(direction)))
+                        .append(", survival=").append(Math.round(100 * getSurvivalProbability(direction)))
+                        .append("%, rollouts=").append(getRollouts(direction)).append("; ");
+            }
+        }
+        return sb.append("complete=").append(complete).append('}').toString();
+    }
+}
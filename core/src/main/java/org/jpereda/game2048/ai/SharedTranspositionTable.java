@@ -0,0 +1,171 @@
+/*
+ * Copyright (C) 2013-2019 2048FX
+ * Jose Pereda, Bruno Borges & Jens Deters
+ * All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpereda.game2048.ai;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import org.jpereda.game2048.engine.BitBoard;
+
+/**
+ * Fixed size transposition table, off the Java heap, that can be shared
+ * by many search threads without locks.
+ *
+ * Boards are first reduced to their canonical form across the 8 rotations
+ * and reflections of the grid (see {@link BitBoard#canonical(long)}), so
+ * symmetric positions share one entry. This requires an {@link Evaluator}
+ * that gives the same value to symmetric boards.
+ *
+ * Every bucket has two entries of 16 bytes: the first one is only replaced
+ * by values of the same or a higher depth, or from a previous search, the
+ * second one is always replaced. Each entry holds the data (value, depth and
+ * generation) and the board XOR the data, so an entry written by two
+ * threads at the same time is detected and ignored, instead of locking.
+ *
+ * {@link #clear()} starts a new generation, so it takes constant time.
+ *
+ * @author jpereda
+ */
+public class SharedTranspositionTable implements TranspositionTable {
+
+    public static final long DEFAULT_SIZE = 64L << 20;
+    public static final long MIN_SIZE = 1L << 10;
+
+    private static final int ENTRY_BYTES = 16;
+    private static final int BUCKET_BYTES = 2 * ENTRY_BYTES;
+    private static final int MAX_BUFFER_BITS = 30;
+    private static final int MAX_GENERATION = 0xFF;
+
+    private final ByteBuffer[] buffers;
+    private final int bufferBits;
+    private final int bucketBits;
+    private final long size;
+    private volatile int generation = 1;
+
+    /**
+     * Creates a table of {@link #getDefaultSize()} bytes
+     */
+    public SharedTranspositionTable() {
+        this(getDefaultSize());
+    }
+
+    /**
+     * @param maxBytes memory budget of the table. It is rounded down to a
+     * power of 2, of at least {@link #MIN_SIZE} bytes
+     */
+    public SharedTranspositionTable(long maxBytes) {
+        if (maxBytes < MIN_SIZE) {
+            throw new IllegalArgumentException("Table size must be at least " + MIN_SIZE + " bytes: " + maxBytes);
+        }
+        int bits = 63 - Long.numberOfLeadingZeros(maxBytes);
+        size = 1L << bits;
+        bucketBits = bits - Integer.numberOfTrailingZeros(BUCKET_BYTES);
+        bufferBits = Math.min(bits, MAX_BUFFER_BITS);
+        buffers = new ByteBuffer[(int) (size >>> bufferBits)];
+        for (int i = 0; i < buffers.length; i++) {
+            buffers[i] = ByteBuffer.allocateDirect(1 << bufferBits).order(ByteOrder.nativeOrder());
+        }
+    }
+
+    /**
+     * @return the memory budget given in megabytes with
+     * -Dgame2048.table.mb=n, or {@link #DEFAULT_SIZE}
+     */
+    public static long getDefaultSize() {
+        Long megabytes = Long.getLong("game2048.table.mb");
+        return megabytes != null ? megabytes << 20 : DEFAULT_SIZE;
+    }
+
+    /**
+     * @return the size of the table, in bytes
+     */
+    public long getSize() {
+        return size;
+    }
+
+    @Override
+    public float get(long board, int depth) {
+        long key = BitBoard.canonical(board);
+        long offset = bucket(key);
+        ByteBuffer buffer = buffers[(int) (offset >>> bufferBits)];
+        int index = (int) (offset & ((1L << bufferBits) - 1));
+        int current = generation;
+        for (int i = 0; i < 2; i++, index += ENTRY_BYTES) {
+            long data = buffer.getLong(index + 8);
+            // the board may be in both entries, with different depths
+            if ((buffer.getLong(index) ^ data) == key && generation(data) == current && depth(data) >= depth) {
+                return value(data);
+            }
+        }
+        return MISSING;
+    }
+
+    @Override
+    public void put(long board, int depth, float value) {
+        long key = BitBoard.canonical(board);
+        long offset = bucket(key);
+        ByteBuffer buffer = buffers[(int) (offset >>> bufferBits)];
+        int index = (int) (offset & ((1L << bufferBits) - 1));
+        int current = generation;
+
+        long data = buffer.getLong(index + 8);
+        if (generation(data) == current && depth(data) > depth) {
+            // keep the deeper value, even of the same board, use the second entry
+            index += ENTRY_BYTES;
+        }
+        long newData = ((long) current << 40) | ((long) (depth & 0xFF) << 32)
+                | (Float.floatToRawIntBits(value) & 0xFFFFFFFFL);
+        buffer.putLong(index, key ^ newData);
+        buffer.putLong(index + 8, newData);
+    }
+
+    /**
+     * Starts a new generation: the values of the previous ones are no longer
+     * returned, and are replaced first
+     */
+    @Override
+    public synchronized void clear() {
+        if (generation == MAX_GENERATION) {
+            // before the generation wraps around, really clear the entries
+            for (ByteBuffer buffer : buffers) {
+                for (int i = 0; i < buffer.capacity(); i += 8) {
+                    buffer.putLong(i, 0L);
+                }
+            }
+            generation = 1;
+        } else {
+            generation++;
+        }
+    }
+
+    private long bucket(long key) {
+        return ((key * 0x9e3779b97f4a7c15L) >>> (64 - bucketBits)) * BUCKET_BYTES;
+    }
+
+    private static int generation(long data) {
+        return (int) (data >>> 40) & 0xFF;
+    }
+
+    private static int depth(long data) {
+        return (int) (data >>> 32) & 0xFF;
+    }
+
+    private static float value(long data) {
+        return Float.intBitsToFloat((int) data);
+    }
+}
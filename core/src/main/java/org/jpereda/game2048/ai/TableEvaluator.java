@@ -0,0 +1,123 @@
+/*
+ * Copyright (C) 2013-2019 2048FX
+ * Jose Pereda, Bruno Borges & Jens Deters
+ * All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpereda.game2048.ai;
+
+import org.jpereda.game2048.engine.BitBoard;
+import org.jpereda.game2048.engine.MoveTables;
+
+import static org.jpereda.game2048.engine.BitBoard.SIZE;
+
+/**
+ * Evaluator with the heuristic terms precomputed for all the 65536 possible
+ * lines of a 4x4 bitboard: empty cells, merges, monotonicity, smoothness,
+ * sum of the tiles and highest tile at one end of the line.
+ *
+ * The value of a board is the sum of the values of its 4 rows and its 4
+ * columns, so it takes 8 lookups. All the terms give the same value to a
+ * line and to the reversed line, so symmetric boards have the same value.
+ *
+ * @author jpereda
+ */
+public class TableEvaluator implements Evaluator {
+
+    private final HeuristicWeights weights;
+    private final float[] table = new float[MoveTables.ROWS];
+
+    public TableEvaluator() {
+        this(HeuristicWeights.DEFAULT);
+    }
+
+    public TableEvaluator(HeuristicWeights weights) {
+        this.weights = weights;
+        for (int row = 0; row < MoveTables.ROWS; row++) {
+            table[row] = evaluateRow(row);
+        }
+    }
+
+    public HeuristicWeights getWeights() {
+        return weights;
+    }
+
+    @Override
+    public float evaluate(long board) {
+        long columns = BitBoard.transpose(board);
+        float value = table[(int) (board & 0xFFFF)] +
+                table[(int) ((board >>> 16) & 0xFFFF)] +
+                table[(int) ((board >>> 32) & 0xFFFF)] +
+                table[(int) (board >>> 48)] +
+                table[(int) (columns & 0xFFFF)] +
+                table[(int) ((columns >>> 16) & 0xFFFF)] +
+                table[(int) ((columns >>> 32) & 0xFFFF)] +
+                table[(int) (columns >>> 48)];
+        return Math.max(value, 1f);
+    }
+
+    private float evaluateRow(int row) {
+        int[] rank = new int[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            rank[i] = (row >>> (i << 2)) & 0xF;
+        }
+
+        float sum = 0f;
+        int empty = 0, merges = 0, max = 0;
+        int previous = 0, counter = 0;
+        for (int i = 0; i < SIZE; i++) {
+            sum += (float) Math.pow(rank[i], weights.getSumPower());
+            max = Math.max(max, rank[i]);
+            if (rank[i] == 0) {
+                empty++;
+                continue;
+            }
+            // runs of equal tiles, ignoring the empty cells between them
+            if (previous == rank[i]) {
+                counter++;
+            } else if (counter > 0) {
+                merges += 1 + counter;
+                counter = 0;
+            }
+            previous = rank[i];
+        }
+        if (counter > 0) {
+            merges += 1 + counter;
+        }
+
+        float left = 0f, right = 0f, smoothness = 0f;
+        for (int i = 1; i < SIZE; i++) {
+            float a = (float) Math.pow(rank[i - 1], weights.getMonotonicityPower());
+            float b = (float) Math.pow(rank[i], weights.getMonotonicityPower());
+            if (rank[i - 1] > rank[i]) {
+                left += a - b;
+            } else {
+                right += b - a;
+            }
+            if (rank[i - 1] != 0 && rank[i] != 0) {
+                smoothness += Math.abs(rank[i - 1] - rank[i]);
+            }
+        }
+        boolean maxAtEnd = max > 0 && (rank[0] == max || rank[SIZE - 1] == max);
+
+        return weights.getBase()
+                + weights.getEmpty() * empty
+                + weights.getMerges() * merges
+                - weights.getMonotonicity() * Math.min(left, right)
+                - weights.getSmoothness() * smoothness
+                - weights.getSum() * sum
+                + (maxAtEnd ? weights.getCorner() * max : 0f);
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright (C) 2013-2019 2048FX
+ * Jose Pereda, Bruno Borges & Jens Deters
+ * All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpereda.game2048.ai;
+
+/**
+ * Cache of the values of the chance nodes already evaluated by a search,
+ * keyed on the board.
+ *
+ * A value is only valid for searches of the same or lower depth than the
+ * one used to compute it.
+ *
+ * @author jpereda
+ */
+public interface TranspositionTable {
+
+    /**
+     * Returned by {@link #get(long, int)} when there is no valid value
+     */
+    float MISSING = -1f;
+
+    /**
+     * @param board a 4x4 bitboard
+     * @param depth remaining depth of the search
+     * @return the value of the board, computed with at least that depth, or
+     * {@link #MISSING}
+     */
+    float get(long board, int depth);
+
+    /**
+     * @param board a 4x4 bitboard
+     * @param depth remaining depth used to compute the value, at least 1
+     * @param value of the board, not negative
+     */
+    void put(long board, int depth, float value);
+
+    /**
+     * Removes all the values
+     */
+    void clear();
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright (C) 2013-2019 2048FX
+ * Jose Pereda, Bruno Borges & Jens Deters
+ * All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.jpereda.game2048.engine;
+
+/**
+ * Helper methods to work with a 4x4 board packed in a single long.
+ *
+ * Each cell takes 4 bits and holds the power of 2 of its tile:
+ * 0 for an empty cell, 1 for 2, 2 for 4, ... 11 for 2048, ... 15 for 32768.
+ * The cell (x, y) is stored in the nibble x + 4 * y, so every row of the
+ * board is a 16 bits value, with x = 0 in its lowest nibble.
+ *
+ * @author jpereda
+ */
+public final class BitBoard {
+
+    public static final int SIZE = 4;
+    public static final int CELLS = SIZE * SIZE;
+    public static final int MAX_EXPONENT = 15;
+    public static final int MAX_VALUE = 1 << MAX_EXPONENT;
+
+    private BitBoard() {
+    }
+
+    public static int getCell(int x, int y) {
+        return x + SIZE * y;
+    }
+
+    public static int getExponent(long board, int cell) {
+        return (int) ((board >>> (cell << 2)) & 0xF);
+    }
+
+    public static long setExponent(long board, int cell, int exponent) {
+        if (exponent < 0 || exponent > MAX_EXPONENT) {
+            throw new IllegalArgumentException("Exponent out of range: " + exponent);
+        }
+        int shift = cell << 2;
+        return (board & ~(0xFL << shift)) | ((long) exponent << shift);
+    }
+
+    public static int getValue(long board, int x, int y) {
+        return toValue(getExponent(board, getCell(x, y)));
+    }
+
+    public static long setValue(long board, int x, int y, int value) {
+        return setExponent(board, getCell(x, y), toExponent(value));
+    }
+
+    /**
+     * @param value of a tile, a power of 2, or 0 for an empty cell
+     * @return the power of 2 of the value, or 0 for an empty cell
+     */
+    public static int toExponent(int value) {
+        return value <= 1 ? 0 : 31 - Integer.numberOfLeadingZeros(value);
+    }
+
+    public static int toValue(int exponent) {
+        return exponent == 0 ? 0 : 1 << exponent;
+    }
+
+    /**
+     * Swaps rows and columns of the board, so cell (x, y) goes to (y, x)
+     * @param board a 4x4 bitboard
+     * @return the transposed board
+     */
+    public static long transpose(long board) {
+        long a1 = board & 0xF0F00F0FF0F00F0FL;
+        long a2 = board & 0x0000F0F00000F0F0L;
+        long a3 = board & 0x0F0F00000F0F0000L;
+        long a = a1 | (a2 << 12) | (a3 >>> 12);
+        long b1 = a & 0xFF00FF0000FF00FFL;
+        long b2 = a & 0x00FF00FF00000000L;
+        long b3 = a & 0x00000000FF00FF00L;
+        return b1 | (b2 >>> 24) | (b3 << 24);
+    }
+
+    /**
+     * Mirrors the board left to right, so cell (x, y) goes to (3 - x, y)
+     * @param board a 4x4 bitboard
+     * @return the mirrored board
+     */
+    public static long flipHorizontal(long board) {
+        long a = ((board & 0xF0F0F0F0F0F0F0F0L) >>> 4) | ((board & 0x0F0F0F0F0F0F0F0FL) << 4);
+        return ((a & 0xFF00FF00FF00FF00L) >>> 8) | ((a & 0x00FF00FF00FF00FFL) << 8);
+    }
+
+    /**
+     * Mirrors the board top to bottom, so cell (x, y) goes to (x, 3 - y)
+     * @param board a 4x4 bitboard
+     * @return the mirrored board
+     */
+    public static long flipVertical(long board) {
+        return (board >>> 48) | ((board >>> 16) & 0xFFFF0000L)
+                | ((board << 16) & 0xFFFF00000000L) | (board << 48);
+    }
+
+    /**
+     * The 8 rotations and reflections of a board have the same value for the
+     * game, as each movement of one of them is a movement of the others.
+     * @param board a 4x4 bitboard
+     * @return the lowest of the 8 symmetries of the board
+     */
+    public static long canonical(long board) {
+        long min = board;
+        long h = flipHorizontal(board);
+        long v = flipVertical(board);
+        long hv = flipVertical(h);
+        min = Math.min(min, Math.min(h, Math.min(v, hv)));
+        long t = transpose(board);
+        min = Math.min(min, Math.min(t, transpose(h)));
+        return Math.min(min, Math.min(transpose(v), transpose(hv)));
+    }
+
+    public static int countEmpty(long board) {
+        int empty = 0;
+        for (int cell = 0; cell < CELLS; cell++) {
+            if (getExponent(board, cell) == 0) {
+                empty++;
+            }
+        }
+        return empty;
+    }
+
+    public static int getMaxExponent(long board) {
+        int max = 0;
+        for (int cell = 0; cell < CELLS; cell++) {
+            max = Math.max(max, getExponent(board, cell));
+        }
+        return max;
+    }
+
+    public static String toString(long board) {
+        StringBuilder sb = new StringBuilder();
+        for (int y = 0; y < SIZE; y++) {
+            for (int x = 0; x < SIZE; x++) {
+                sb.append(String.format("%6d", getValue(board, x, y)));
+            }
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright (C) 2013-2019 2048FX
+ * Jose Pereda, Bruno Borges & Jens Deters
+ * All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.jpereda.game2048.engine;
+
+import org.jpereda.game2048.Direction;
+
+import static org.jpereda.game2048.engine.BitBoard.SIZE;
+
+/**
+ * Game rules for a 4x4 grid, without any JavaFX dependency.
+ *
+ * The board is held in a single long (see {@link BitBoard}), so tiles up to
+ * 32768 can be represented. Two 32768 tiles are not merged.
+ * Movements are resolved with the precomputed {@link MoveTables}.
+ *
+ * @author jpereda
+ */
+public class BitBoardEngine implements MoveEngine {
+
+    private long board;
+    private int score;
+    private final MoveResult result = new MoveResult(SIZE);
+    private final EmptyCells emptyCells = new EmptyCells(SIZE);
+    private int mergeablePairs;
+
+    public BitBoardEngine() {
+        this(0L);
+    }
+
+    public BitBoardEngine(long board) {
+        setBoard(board);
+    }
+
+    @Override
+    public int getGridSize() {
+        return SIZE;
+    }
+
+    @Override
+    public void clear() {
+        board = 0L;
+        score = 0;
+        emptyCells.fill();
+        mergeablePairs = 0;
+    }
+
+    public long getBoard() {
+        return board;
+    }
+
+    public void setBoard(long board) {
+        this.board = board;
+        emptyCells.fill();
+        for (int cell = 0; cell < BitBoard.CELLS; cell++) {
+            if (BitBoard.getExponent(board, cell) != 0) {
+                emptyCells.remove(cell);
+            }
+        }
+        mergeablePairs = MoveTables.countMergeablePairs(board);
+    }
+
+    @Override
+    public int getScore() {
+        return score;
+    }
+
+    public void setScore(int score) {
+        this.score = score;
+    }
+
+    @Override
+    public int getValue(int x, int y) {
+        return BitBoard.getValue(board, x, y);
+    }
+
+    @Override
+    public void setValue(int x, int y, int value) {
+        board = BitBoard.setValue(board, x, y, value);
+        if (value == 0) {
+            emptyCells.add(BitBoard.getCell(x, y));
+        } else {
+            emptyCells.remove(BitBoard.getCell(x, y));
+        }
+        mergeablePairs = MoveTables.countMergeablePairs(board);
+    }
+
+    @Override
+    public EmptyCells getEmptyCells() {
+        return emptyCells;
+    }
+
+    @Override
+    public int getMergeablePairs() {
+        return mergeablePairs;
+    }
+
+    @Override
+    public MoveResult move(Direction direction) {
+        result.clear();
+        MoveTables.addMoves(board, direction, result);
+        board = MoveTables.move(board, direction);
+        score += result.getPoints();
+        result.setBoard(board);
+        if (result.isMoved()) {
+            emptyCells.update(result);
+            mergeablePairs = MoveTables.countMergeablePairs(board);
+        }
+        return result;
+    }
+
+    @Override
+    public boolean canMove() {
+        return !emptyCells.isEmpty() || mergeablePairs > 0;
+    }
+
+    public boolean isGameOver() {
+        return !canMove();
+    }
+
+    public int countEmpty() {
+        return emptyCells.size();
+    }
+
+    @Override
+    public String toString() {
+        return "BitBoardEngine{" + "score=" + score + "}\n" + BitBoard.toString(board);
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (C) 2013-2019 2048FX
+ * Jose Pereda, Bruno Borges & Jens Deters
+ * All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.jpereda.game2048.engine;
+
+/**
+ * Set of the empty cells of a grid, updated incrementally as tiles are added,
+ * moved or merged.
+ *
+ * The cells are kept in a dense array, and every cell knows its position in
+ * that array, so adding, removing and picking a cell at random take constant
+ * time, without allocations. Removing a cell moves the last one to its place.
+ *
+ * @author jpereda
+ */
+public final class EmptyCells {
+
+    private final int[] cells;
+    private final int[] positions;
+    private int size;
+
+    public EmptyCells(int gridSize) {
+        cells = new int[gridSize * gridSize];
+        positions = new int[gridSize * gridSize];
+        fill();
+    }
+
+    /**
+     * Marks all the cells as empty
+     */
+    public void fill() {
+        for (int cell = 0; cell < cells.length; cell++) {
+            cells[cell] = cell;
+            positions[cell] = cell;
+        }
+        size = cells.length;
+    }
+
+    public void add(int cell) {
+        if (contains(cell)) {
+            return;
+        }
+        int position = size++;
+        swap(positions[cell], position);
+    }
+
+    public void remove(int cell) {
+        if (!contains(cell)) {
+            return;
+        }
+        int position = --size;
+        swap(positions[cell], position);
+    }
+
+    public boolean contains(int cell) {
+        return positions[cell] < size;
+    }
+
+    /**
+     * Updates the set after a movement: the source cell of every tile is
+     * emptied and its target cell is filled, in the order the tiles moved
+     * @param result of the movement
+     */
+    public void update(MoveResult result) {
+        for (int i = 0; i < result.size(); i++) {
+            add(result.getFrom(i));
+            remove(result.getTo(i));
+        }
+    }
+
+    /**
+     * @return the number of empty cells
+     */
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @param index between 0 and size() - 1
+     * @return the empty cell at that index. The order changes when the set
+     * is updated
+     */
+    public int get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        return cells[index];
+    }
+
+    private void swap(int i, int j) {
+        int a = cells[i], b = cells[j];
+        cells[i] = b;
+        cells[j] = a;
+        positions[b] = i;
+        positions[a] = j;
+    }
+}
@@ -0,0 +1,236 @@
+/*
+ * Copyright (C) 2013-2019 2048FX
+ * Jose Pereda, Bruno Borges & Jens Deters
+ * All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.jpereda.game2048.engine;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fast random number generator for the game, based on SplitMix64 (the
+ * algorithm behind java.util.SplittableRandom, not available on every
+ * platform the game runs on).
+ *
+ * Every game owns one instance, created from an explicit seed, so a game can
+ * be reproduced from its seed and the list of movements. Instances are not
+ * thread safe: each thread has to use its own stream, obtained with
+ * {@link #split()}.
+ *
+ * @author jpereda
+ */
+public final class GameRandom {
+
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+    private static final AtomicLong SEEDS = new AtomicLong(mix64(System.currentTimeMillis()) ^ mix64(System.nanoTime()));
+
+    private final long seed;
+    private final long gamma;
+    private long state;
+
+    /**
+     * Creates a generator with the given seed: two generators with the same
+     * seed produce the same sequence of values
+     * @param seed of the generator
+     */
+    public GameRandom(long seed) {
+        this(seed, seed, GOLDEN_GAMMA);
+    }
+
+    private GameRandom(long seed, long state, long gamma) {
+        this.seed = seed;
+        this.state = state;
+        this.gamma = gamma;
+    }
+
+    /**
+     * @return a new seed, different every time it is called
+     */
+    public static long newSeed() {
+        return mix64(SEEDS.getAndAdd(2 * GOLDEN_GAMMA));
+    }
+
+    /**
+     * @return the seed this generator was created with
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Creates a new generator, with its own stream of values, to be used
+     * by another thread. The sequence of generators created by consecutive
+     * calls depends only on the seed of this one.
+     * @return a new generator
+     */
+    public GameRandom split() {
+        return new GameRandom(seed, nextLong(), mixGamma(nextSeed()));
+    }
+
+    public long nextLong() {
+        return mix64(nextSeed());
+    }
+
+    public int nextInt() {
+        return mix32(nextSeed());
+    }
+
+    /**
+     * @param bound upper bound, exclusive. Must be positive
+     * @return a uniformly distributed value between 0 and bound - 1
+     */
+    public int nextInt(int bound) {
+        if (bound <= 0) {
+            throw new IllegalArgumentException("bound must be positive: " + bound);
+        }
+        // unbiased: rejects the values of the last, incomplete, range
+        int bits, value;
+        do {
+            bits = nextInt() >>> 1;
+            value = bits % bound;
+        } while (bits - value + (bound - 1) < 0);
+        return value;
+    }
+
+    /**
+     * @return a uniformly distributed value between 0 (inclusive) and 1
+     */
+    public double nextDouble() {
+        return (nextLong() >>> 11) * 0x1.0p-53;
+    }
+
+    public float nextFloat() {
+        return (nextLong() >>> 40) * 0x1.0p-24f;
+    }
+
+    /**
+     * @return the value of a new tile: 2 with a probability of 90%, else 4
+     */
+    public int nextTileValue() {
+        return nextDouble() < 0.9 ? 2 : 4;
+    }
+
+    /**
+     * @param emptyCells of the grid
+     * @return one of the empty cells, chosen at random, or -1 if the grid
+     * is full
+     */
+    public int nextCell(EmptyCells emptyCells) {
+        return emptyCells.isEmpty() ? -1 : emptyCells.get(nextInt(emptyCells.size()));
+    }
+
+    /**
+     * Adds the first tiles of a game: one tile on a random cell, and 80% of
+     * the times a second one on another cell. Both are drawn as
+     * {@link #nextTileValue()}, but they are never two 4s: the second one is
+     * a 2 then
+     * @param engine with an empty grid
+     */
+    public void startGame(MoveEngine engine) {
+        int size = engine.getGridSize();
+        int cells = size * size;
+        int cell0 = nextInt(cells);
+        int value0 = nextTileValue();
+        engine.setValue(cell0 % size, cell0 / size, value0);
+
+        if (nextFloat() <= 0.8) {
+            int cell1 = nextInt(cells - 1);
+            if (cell1 >= cell0) {
+                cell1++;
+            }
+            int value1 = nextTileValue();
+            if (value1 == 4 && value0 == 4) {
+                value1 = 2;
+            }
+            engine.setValue(cell1 % size, cell1 / size, value1);
+        }
+    }
+
+    /**
+     * Adds a new tile, as {@link #nextTileValue()}, on a random empty cell
+     * @param board a 4x4 bitboard
+     * @return the board with the new tile, or the same board if it is full
+     */
+    public long spawn(long board) {
+        int empty = BitBoard.countEmpty(board);
+        if (empty == 0) {
+            return board;
+        }
+        int target = nextInt(empty);
+        for (int cell = 0; cell < BitBoard.CELLS; cell++) {
+            if (BitBoard.getExponent(board, cell) == 0 && target-- == 0) {
+                return BitBoard.setExponent(board, cell, nextTileValue() == 2 ? 1 : 2);
+            }
+        }
+        return board;
+    }
+
+    /**
+     * @return the current state of the generator, to be restored with
+     * {@link #fromState(String)}
+     */
+    public String toState() {
+        return Long.toString(seed, 16) + ":" + Long.toString(state, 16) + ":" + Long.toString(gamma, 16);
+    }
+
+    /**
+     * @param state as returned by {@link #toState()}
+     * @return a generator that continues the sequence of the saved one
+     * @throws IllegalArgumentException if the state is not valid
+     */
+    public static GameRandom fromState(String state) {
+        String[] values = state.split(":");
+        if (values.length != 3) {
+            throw new IllegalArgumentException("Invalid random state: " + state);
+        }
+        try {
+            return new GameRandom(Long.parseLong(values[0], 16),
+                    Long.parseLong(values[1], 16),
+                    Long.parseLong(values[2], 16) | 1L);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid random state: " + state, e);
+        }
+    }
+
+    private long nextSeed() {
+        return state += gamma;
+    }
+
+    private static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    private static int mix32(long z) {
+        z = (z ^ (z >>> 33)) * 0x62a9d9ed799705f5L;
+        return (int) (((z ^ (z >>> 28)) * 0xcb24d0a5c88c35b3L) >>> 32);
+    }
+
+    private static long mixGamma(long z) {
+        z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+        z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        z = (z ^ (z >>> 33)) | 1L;
+        int n = Long.bitCount(z ^ (z >>> 1));
+        return (n < 24) ? z ^ 0xaaaaaaaaaaaaaaaaL : z;
+    }
+
+    @Override
+    public String toString() {
+        return "GameRandom{" + "seed=" + seed + '}';
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright (C) 2013-2019 2048FX
+ * Jose Pereda, Bruno Borges & Jens Deters
+ * All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.jpereda.game2048.engine;
+
+import org.jpereda.game2048.Direction;
+import org.jpereda.game2048.GridOperator;
+import org.jpereda.game2048.Traversal;
+
+import java.util.Arrays;
+
+/**
+ * Game rules for grids of any size, with the values of the tiles held in a
+ * plain array. Moving the tiles doesn't allocate any object.
+ *
+ * The empty cells and the pairs of adjacent tiles that can be merged are
+ * updated on every cell that changes, so checking if the game is over
+ * doesn't need to scan the grid.
+ *
+ * @author jpereda
+ */
+public class GridEngine implements MoveEngine {
+
+    private final GridOperator gridOperator;
+    private final int gridSize;
+    private final int[] values;
+    private final MoveResult result;
+    private final EmptyCells emptyCells;
+    private int score;
+    private int mergeablePairs;
+
+    public GridEngine(GridOperator gridOperator) {
+        this.gridOperator = gridOperator;
+        this.gridSize = gridOperator.getGridSize();
+        this.values = new int[gridSize * gridSize];
+        this.result = new MoveResult(gridSize);
+        this.emptyCells = new EmptyCells(gridSize);
+    }
+
+    @Override
+    public int getGridSize() {
+        return gridSize;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(values, 0);
+        score = 0;
+        emptyCells.fill();
+        mergeablePairs = 0;
+    }
+
+    @Override
+    public int getValue(int x, int y) {
+        return values[gridOperator.getCell(x, y)];
+    }
+
+    @Override
+    public void setValue(int x, int y, int value) {
+        int cell = gridOperator.getCell(x, y);
+        put(cell, value);
+        if (value == 0) {
+            emptyCells.add(cell);
+        } else {
+            emptyCells.remove(cell);
+        }
+    }
+
+    /**
+     * Changes the value of a cell, updating the count of mergeable pairs
+     * with its neighbours
+     */
+    private void put(int cell, int value) {
+        mergeablePairs += equalNeighbours(cell, value) - equalNeighbours(cell, values[cell]);
+        values[cell] = value;
+    }
+
+    private int equalNeighbours(int cell, int value) {
+        if (value == 0) {
+            return 0;
+        }
+        int x = cell % gridSize, y = cell / gridSize;
+        int count = 0;
+        if (x > 0 && values[cell - 1] == value) {
+            count++;
+        }
+        if (x < gridSize - 1 && values[cell + 1] == value) {
+            count++;
+        }
+        if (y > 0 && values[cell - gridSize] == value) {
+            count++;
+        }
+        if (y < gridSize - 1 && values[cell + gridSize] == value) {
+            count++;
+        }
+        return count;
+    }
+
+    @Override
+    public EmptyCells getEmptyCells() {
+        return emptyCells;
+    }
+
+    @Override
+    public int getMergeablePairs() {
+        return mergeablePairs;
+    }
+
+    @Override
+    public int getScore() {
+        return score;
+    }
+
+    public void setScore(int score) {
+        this.score = score;
+    }
+
+    @Override
+    public MoveResult move(Direction direction) {
+        result.clear();
+        Traversal traversal = gridOperator.getTraversal(direction);
+        for (int first = 0; first < traversal.size(); first += gridSize) {
+            int target = -1;
+            int targetValue = 0;
+            boolean targetMerged = false;
+            for (int i = 0; i < gridSize; i++) {
+                int cell = traversal.getCell(first + i);
+                int value = values[cell];
+                if (value == 0) {
+                    continue;
+                }
+                if (target >= 0 && !targetMerged && targetValue == value) {
+                    int targetCell = traversal.getCell(first + target);
+                    targetValue = 2 * value;
+                    targetMerged = true;
+                    put(targetCell, targetValue);
+                    put(cell, 0);
+                    result.add(cell, targetCell, true);
+                    result.addPoints(targetValue);
+                } else {
+                    target++;
+                    int targetCell = traversal.getCell(first + target);
+                    targetValue = value;
+                    targetMerged = false;
+                    if (targetCell != cell) {
+                        put(targetCell, value);
+                        put(cell, 0);
+                        result.add(cell, targetCell, false);
+                    }
+                }
+            }
+        }
+        score += result.getPoints();
+        emptyCells.update(result);
+        return result;
+    }
+
+    @Override
+    public boolean canMove() {
+        return !emptyCells.isEmpty() || mergeablePairs > 0;
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright (C) 2013-2019 2048FX
+ * Jose Pereda, Bruno Borges & Jens Deters
+ * All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.jpereda.game2048.engine;
+
+import org.jpereda.game2048.Direction;
+
+/**
+ * Game rules without JavaFX: the values of the tiles on the grid and how
+ * they move and merge
+ *
+ * @author jpereda
+ */
+public interface MoveEngine {
+
+    int getGridSize();
+
+    /**
+     * Removes all the tiles and resets the score
+     */
+    void clear();
+
+    /**
+     * @param x coordinate
+     * @param y coordinate
+     * @return the value of the tile, or 0 for an empty cell
+     */
+    int getValue(int x, int y);
+
+    void setValue(int x, int y, int value);
+
+    int getScore();
+
+    /**
+     * @return the empty cells of the grid, kept up to date by the engine
+     */
+    EmptyCells getEmptyCells();
+
+    /**
+     * @return the number of pairs of adjacent tiles that can be merged,
+     * kept up to date by the engine
+     */
+    int getMergeablePairs();
+
+    /**
+     * Moves all the tiles of the grid in the given direction, merging pairs
+     * of tiles with the same value, only once per movement.
+     *
+     * @param direction of movement
+     * @return the result of the movement. It is reused by the next call
+     */
+    MoveResult move(Direction direction);
+
+    /**
+     * @return true if there is at least one empty cell or a pair of adjacent
+     * tiles that can be merged. It takes constant time
+     */
+    boolean canMove();
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright (C) 2013-2019 2048FX
+ * Jose Pereda, Bruno Borges & Jens Deters
+ * All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.jpereda.game2048.engine;
+
+/**
+ * Result of a movement: the new board, the points gained and the list of
+ * tiles that were moved or merged.
+ *
+ * Cells are given by their index x + gridSize * y. Tile movements are listed
+ * in traversal order, so they can be applied one after the other: a merged
+ * tile always goes to a cell where a previous movement (or a tile that didn't
+ * move) already placed the tile it merges with.
+ *
+ * Instances are reused by the engine between movements, to avoid allocations.
+ *
+ * @author jpereda
+ */
+public final class MoveResult {
+
+    private final int gridSize;
+    private final int[] from;
+    private final int[] to;
+    private final boolean[] merged;
+    private int size;
+    private long board;
+    private int points;
+
+    public MoveResult(int gridSize) {
+        this.gridSize = gridSize;
+        from = new int[gridSize * gridSize];
+        to = new int[gridSize * gridSize];
+        merged = new boolean[gridSize * gridSize];
+    }
+
+    void clear() {
+        size = 0;
+        points = 0;
+        board = 0L;
+    }
+
+    void add(int fromCell, int toCell, boolean merge) {
+        from[size] = fromCell;
+        to[size] = toCell;
+        merged[size] = merge;
+        size++;
+    }
+
+    void setBoard(long board) {
+        this.board = board;
+    }
+
+    void addPoints(int points) {
+        this.points += points;
+    }
+
+    /**
+     * @return the number of tiles moved or merged
+     */
+    public int size() {
+        return size;
+    }
+
+    public boolean isMoved() {
+        return size > 0;
+    }
+
+    public int getFrom(int i) {
+        return from[i];
+    }
+
+    public int getFromX(int i) {
+        return from[i] % gridSize;
+    }
+
+    public int getFromY(int i) {
+        return from[i] / gridSize;
+    }
+
+    public int getTo(int i) {
+        return to[i];
+    }
+
+    public int getToX(int i) {
+        return to[i] % gridSize;
+    }
+
+    public int getToY(int i) {
+        return to[i] / gridSize;
+    }
+
+    /**
+     * @param i index of the movement
+     * @return true if the tile merged with the one found in its target cell
+     */
+    public boolean isMerged(int i) {
+        return merged[i];
+    }
+
+    /**
+     * @return the board after the movement, for engines backed by a bitboard
+     */
+    public long getBoard() {
+        return board;
+    }
+
+    public int getPoints() {
+        return points;
+    }
+
+    public int getGridSize() {
+        return gridSize;
+    }
+}
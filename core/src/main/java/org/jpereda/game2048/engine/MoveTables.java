@@ -0,0 +1,205 @@
+/*
+ * Copyright (C) 2013-2019 2048FX
+ * Jose Pereda, Bruno Borges & Jens Deters
+ * All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.jpereda.game2048.engine;
+
+import org.jpereda.game2048.Direction;
+
+import static org.jpereda.game2048.engine.BitBoard.MAX_EXPONENT;
+import static org.jpereda.game2048.engine.BitBoard.SIZE;
+
+/**
+ * Precomputed transitions for all the 65536 possible rows of a 4x4 bitboard.
+ *
+ * Moving a board LEFT or RIGHT takes one lookup per row. UP and DOWN
+ * are done on the transposed board, so its columns become rows.
+ * The score of a row doesn't depend on the direction the row moves to, so
+ * one table is enough.
+ *
+ * Each row also stores how many pairs of adjacent tiles can be merged, so the
+ * pairs of a board can be counted with 8 lookups.
+ *
+ * The tiles moved on each row are packed in a char, using 4 bits per source
+ * cell: the target cell in the lower 2 bits, plus the flags {@link #MERGED}
+ * and {@link #MOVED}.
+ *
+ * @author jpereda
+ */
+public final class MoveTables {
+
+    public static final int ROWS = 1 << 16;
+
+    static final int MERGED = 0x4;
+    static final int MOVED = 0x8;
+
+    private static final char[] ROW_LEFT = new char[ROWS];
+    private static final char[] ROW_RIGHT = new char[ROWS];
+    private static final char[] MOVES_LEFT = new char[ROWS];
+    private static final char[] MOVES_RIGHT = new char[ROWS];
+    private static final int[] ROW_SCORE = new int[ROWS];
+    private static final byte[] ROW_PAIRS = new byte[ROWS];
+
+    static {
+        for (int row = 0; row < ROWS; row++) {
+            int result = 0, moves = 0, score = 0;
+            int target = -1, targetExponent = 0;
+            boolean targetMerged = false;
+            for (int i = 0; i < SIZE; i++) {
+                int exponent = (row >>> (i << 2)) & 0xF;
+                if (exponent == 0) {
+                    continue;
+                }
+                if (target >= 0 && !targetMerged && targetExponent == exponent && exponent < MAX_EXPONENT) {
+                    targetExponent = exponent + 1;
+                    targetMerged = true;
+                    result = (result & ~(0xF << (target << 2))) | (targetExponent << (target << 2));
+                    moves |= (MOVED | MERGED | target) << (i << 2);
+                    score += 1 << targetExponent;
+                } else {
+                    target++;
+                    targetExponent = exponent;
+                    targetMerged = false;
+                    result |= exponent << (target << 2);
+                    if (target != i) {
+                        moves |= (MOVED | target) << (i << 2);
+                    }
+                }
+            }
+            int pairs = 0;
+            for (int i = 0; i < SIZE - 1; i++) {
+                int exponent = (row >>> (i << 2)) & 0xF;
+                if (exponent != 0 && exponent < MAX_EXPONENT && exponent == ((row >>> ((i + 1) << 2)) & 0xF)) {
+                    pairs++;
+                }
+            }
+            ROW_PAIRS[row] = (byte) pairs;
+            ROW_LEFT[row] = (char) result;
+            MOVES_LEFT[row] = (char) moves;
+            ROW_SCORE[row] = score;
+        }
+
+        // moving right is moving left the reversed row
+        for (int row = 0; row < ROWS; row++) {
+            int reversed = reverseRow(row);
+            ROW_RIGHT[row] = (char) reverseRow(ROW_LEFT[reversed]);
+            int moves = 0;
+            for (int i = 0; i < SIZE; i++) {
+                int move = (MOVES_LEFT[reversed] >>> ((SIZE - 1 - i) << 2)) & 0xF;
+                if ((move & MOVED) != 0) {
+                    moves |= ((move & ~0x3) | (SIZE - 1 - (move & 0x3))) << (i << 2);
+                }
+            }
+            MOVES_RIGHT[row] = (char) moves;
+        }
+    }
+
+    private MoveTables() {
+    }
+
+    static int reverseRow(int row) {
+        return ((row & 0xF) << 12) | ((row & 0xF0) << 4) | ((row >>> 4) & 0xF0) | ((row >>> 12) & 0xF);
+    }
+
+    /**
+     * Moves a board in the given direction
+     * @param board a 4x4 bitboard
+     * @param direction of movement
+     * @return the new board, equal to the given one if no tile can move
+     */
+    public static long move(long board, Direction direction) {
+        switch (direction) {
+            case LEFT:  return moveRows(board, ROW_LEFT);
+            case RIGHT: return moveRows(board, ROW_RIGHT);
+            case UP:    return BitBoard.transpose(moveRows(BitBoard.transpose(board), ROW_LEFT));
+            default:    return BitBoard.transpose(moveRows(BitBoard.transpose(board), ROW_RIGHT));
+        }
+    }
+
+    /**
+     * @param board a 4x4 bitboard
+     * @param direction of movement
+     * @return the points gained when moving the board in the given direction
+     */
+    public static int score(long board, Direction direction) {
+        long lines = isVertical(direction) ? BitBoard.transpose(board) : board;
+        return ROW_SCORE[(int) (lines & 0xFFFF)] +
+                ROW_SCORE[(int) ((lines >>> 16) & 0xFFFF)] +
+                ROW_SCORE[(int) ((lines >>> 32) & 0xFFFF)] +
+                ROW_SCORE[(int) (lines >>> 48)];
+    }
+
+    /**
+     * @param board a 4x4 bitboard
+     * @return the number of pairs of adjacent tiles, in rows and columns,
+     * that can be merged
+     */
+    public static int countMergeablePairs(long board) {
+        long columns = BitBoard.transpose(board);
+        return ROW_PAIRS[(int) (board & 0xFFFF)] +
+                ROW_PAIRS[(int) ((board >>> 16) & 0xFFFF)] +
+                ROW_PAIRS[(int) ((board >>> 32) & 0xFFFF)] +
+                ROW_PAIRS[(int) (board >>> 48)] +
+                ROW_PAIRS[(int) (columns & 0xFFFF)] +
+                ROW_PAIRS[(int) ((columns >>> 16) & 0xFFFF)] +
+                ROW_PAIRS[(int) ((columns >>> 32) & 0xFFFF)] +
+                ROW_PAIRS[(int) (columns >>> 48)];
+    }
+
+    private static long moveRows(long board, char[] table) {
+        return table[(int) (board & 0xFFFF)] |
+                ((long) table[(int) ((board >>> 16) & 0xFFFF)] << 16) |
+                ((long) table[(int) ((board >>> 32) & 0xFFFF)] << 32) |
+                ((long) table[(int) (board >>> 48)] << 48);
+    }
+
+    /**
+     * Adds to the result the tiles that move in every line of the board,
+     * in traversal order
+     */
+    static void addMoves(long board, Direction direction, MoveResult result) {
+        boolean vertical = isVertical(direction);
+        boolean towardsZero = direction == Direction.LEFT || direction == Direction.UP;
+        long lines = vertical ? BitBoard.transpose(board) : board;
+        char[] table = towardsZero ? MOVES_LEFT : MOVES_RIGHT;
+        for (int line = 0; line < SIZE; line++) {
+            int row = (int) ((lines >>> (line << 4)) & 0xFFFF);
+            int moves = table[row];
+            if (moves == 0) {
+                continue;
+            }
+            result.addPoints(ROW_SCORE[row]);
+            for (int k = 0; k < SIZE; k++) {
+                int i = towardsZero ? k : SIZE - 1 - k;
+                int move = (moves >>> (i << 2)) & 0xF;
+                if ((move & MOVED) != 0) {
+                    int target = move & 0x3;
+                    if (vertical) {
+                        result.add(BitBoard.getCell(line, i), BitBoard.getCell(line, target), (move & MERGED) != 0);
+                    } else {
+                        result.add(BitBoard.getCell(i, line), BitBoard.getCell(target, line), (move & MERGED) != 0);
+                    }
+                }
+            }
+        }
+    }
+
+    private static boolean isVertical(Direction direction) {
+        return direction == Direction.UP || direction == Direction.DOWN;
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright (C) 2013-2019 2048FX
+ * Jose Pereda, Bruno Borges & Jens Deters
+ * All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpereda.game2048.sim;
+
+import org.jpereda.game2048.Direction;
+import org.jpereda.game2048.ai.Evaluator;
+import org.jpereda.game2048.ai.ExpectimaxSolver;
+import org.jpereda.game2048.engine.GameRandom;
+
+/**
+ * Plays the movement found by an {@link ExpectimaxSolver}.
+ *
+ * @author jpereda
+ */
+public class ExpectimaxStrategy implements Strategy {
+
+    private final ExpectimaxSolver solver;
+
+    public ExpectimaxStrategy(Evaluator evaluator, int depth) {
+        solver = new ExpectimaxSolver(evaluator);
+        solver.setDepth(depth);
+    }
+
+    /**
+     * @param solver to search with, only used by this strategy
+     */
+    public ExpectimaxStrategy(ExpectimaxSolver solver) {
+        this.solver = solver;
+    }
+
+    @Override
+    public Direction choose(long board, GameRandom random) {
+        return solver.findBestMove(board);
+    }
+}
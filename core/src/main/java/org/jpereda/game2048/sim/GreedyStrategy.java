@@ -0,0 +1,55 @@
+/*
+ * Copyright (C) 2013-2019 2048FX
+ * Jose Pereda, Bruno Borges & Jens Deters
+ * All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpereda.game2048.sim;
+
+import org.jpereda.game2048.Direction;
+import org.jpereda.game2048.engine.BitBoard;
+import org.jpereda.game2048.engine.GameRandom;
+import org.jpereda.game2048.engine.MoveTables;
+
+/**
+ * Plays the movement that gains more points, or leaves more empty cells
+ * when the points are the same.
+ *
+ * @author jpereda
+ */
+public class GreedyStrategy implements Strategy {
+
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    @Override
+    public Direction choose(long board, GameRandom random) {
+        Direction best = null;
+        int bestPoints = -1, bestEmpty = -1;
+        for (Direction direction : DIRECTIONS) {
+            long moved = MoveTables.move(board, direction);
+            if (moved == board) {
+                continue;
+            }
+            int points = MoveTables.score(board, direction);
+            int empty = BitBoard.countEmpty(moved);
+            if (points > bestPoints || (points == bestPoints && empty > bestEmpty)) {
+                best = direction;
+                bestPoints = points;
+                bestEmpty = empty;
+            }
+        }
+        return best;
+    }
+}
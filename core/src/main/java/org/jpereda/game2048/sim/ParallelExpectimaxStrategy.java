@@ -0,0 +1,78 @@
+/*
+ * Copyright (C) 2013-2019 2048FX
+ * Jose Pereda, Bruno Borges & Jens Deters
+ * All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpereda.game2048.sim;
+
+import org.jpereda.game2048.Direction;
+import org.jpereda.game2048.ai.Evaluator;
+import org.jpereda.game2048.ai.ParallelExpectimaxSolver;
+import org.jpereda.game2048.ai.SharedTranspositionTable;
+import org.jpereda.game2048.engine.GameRandom;
+
+/**
+ * Plays the movement found by a {@link ParallelExpectimaxSolver}, with its
+ * own pool of worker threads, that has to be closed once the strategy is
+ * not used anymore.
+ *
+ * @author jpereda
+ */
+public class ParallelExpectimaxStrategy implements Strategy, AutoCloseable {
+
+    private final ParallelExpectimaxSolver solver;
+
+    /**
+     * @param evaluator of the leaves
+     * @param depth of the search
+     * @param threads maximum number of worker threads of each search
+     */
+    public ParallelExpectimaxStrategy(Evaluator evaluator, int depth, int threads) {
+        this(evaluator, depth, threads, SharedTranspositionTable.getDefaultSize());
+    }
+
+    /**
+     * @param evaluator of the leaves
+     * @param depth of the search
+     * @param threads maximum number of worker threads of each search
+     * @param tableBytes memory budget of the transposition table shared by
+     * the workers
+     */
+    public ParallelExpectimaxStrategy(Evaluator evaluator, int depth, int threads, long tableBytes) {
+        this(new ParallelExpectimaxSolver(evaluator, threads, new SharedTranspositionTable(tableBytes)));
+        solver.setDepth(depth);
+    }
+
+    /**
+     * @param solver to search with, only used by this strategy
+     */
+    public ParallelExpectimaxStrategy(ParallelExpectimaxSolver solver) {
+        this.solver = solver;
+    }
+
+    @Override
+    public Direction choose(long board, GameRandom random) {
+        return solver.findBestMove(board);
+    }
+
+    /**
+     * Stops the worker threads of the solver
+     */
+    @Override
+    public void close() {
+        solver.close();
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright (C) 2013-2019 2048FX
+ * Jose Pereda, Bruno Borges & Jens Deters
+ * All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpereda.game2048.sim;
+
+import org.jpereda.game2048.Direction;
+import org.jpereda.game2048.engine.GameRandom;
+import org.jpereda.game2048.engine.MoveTables;
+
+/**
+ * Plays any of the movements that change the board, at random.
+ *
+ * @author jpereda
+ */
+public class RandomStrategy implements Strategy {
+
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    private final Direction[] valid = new Direction[DIRECTIONS.length];
+
+    @Override
+    public Direction choose(long board, GameRandom random) {
+        int count = 0;
+        for (Direction direction : DIRECTIONS) {
+            if (MoveTables.move(board, direction) != board) {
+                valid[count++] = direction;
+            }
+        }
+        return count == 0 ? null : valid[random.nextInt(count)];
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ * Copyright (C) 2013-2019 2048FX
+ * Jose Pereda, Bruno Borges & Jens Deters
+ * All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpereda.game2048.sim;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.Locale;
+import org.jpereda.game2048.engine.BitBoard;
+
+/**
+ * Scores, max tiles and moves of the games played by a {@link Simulator}
+ *
+ * @author jpereda
+ */
+public class SimulationResult {
+
+    private static final int[] PERCENTILES = {10, 25, 50, 75, 90, 99};
+    private static final int[] GOALS = {2048, 4096, 8192};
+
+    private final int[] scores;
+    private final int[] maxTiles;
+    private final int[] moves;
+    private final long elapsedNanos;
+    private final int[] sortedScores;
+
+    SimulationResult(int[] scores, int[] maxTiles, int[] moves, long elapsedNanos) {
+        this.scores = scores;
+        this.maxTiles = maxTiles;
+        this.moves = moves;
+        this.elapsedNanos = elapsedNanos;
+        this.sortedScores = scores.clone();
+        Arrays.sort(sortedScores);
+    }
+
+    public int getGames() {
+        return scores.length;
+    }
+
+    public int getScore(int game) {
+        return scores[game];
+    }
+
+    public int getMaxTile(int game) {
+        return maxTiles[game];
+    }
+
+    public int getMoves(int game) {
+        return moves[game];
+    }
+
+    public int getMinScore() {
+        return sortedScores.length == 0 ? 0 : sortedScores[0];
+    }
+
+    public int getMaxScore() {
+        return sortedScores.length == 0 ? 0 : sortedScores[sortedScores.length - 1];
+    }
+
+    public double getMeanScore() {
+        if (scores.length == 0) {
+            return 0;
+        }
+        long sum = 0;
+        for (int score : scores) {
+            sum += score;
+        }
+        return (double) sum / scores.length;
+    }
+
+    public double getScoreDeviation() {
+        if (scores.length == 0) {
+            return 0;
+        }
+        double mean = getMeanScore(), sum = 0;
+        for (int score : scores) {
+            sum += (score - mean) * (score - mean);
+        }
+        return Math.sqrt(sum / scores.length);
+    }
+
+    /**
+     * @param fraction between 0 and 1
+     * @return the score not exceeded by that fraction of the games (nearest rank)
+     */
+    public int getScorePercentile(double fraction) {
+        if (sortedScores.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(fraction * sortedScores.length) - 1;
+        return sortedScores[Math.max(0, Math.min(sortedScores.length - 1, rank))];
+    }
+
+    /**
+     * @return number of games by max tile exponent: index 11 counts the games
+     * that finished with a 2048 tile
+     */
+    public int[] getMaxTileHistogram() {
+        int[] histogram = new int[BitBoard.MAX_EXPONENT + 1];
+        for (int tile : maxTiles) {
+            histogram[BitBoard.toExponent(tile)]++;
+        }
+        return histogram;
+    }
+
+    /**
+     * @param tile goal, like 2048
+     * @return fraction of the games that reached that tile
+     */
+    public double getWinRate(int tile) {
+        if (maxTiles.length == 0) {
+            return 0;
+        }
+        int wins = 0;
+        for (int maxTile : maxTiles) {
+            if (maxTile >= tile) {
+                wins++;
+            }
+        }
+        return (double) wins / maxTiles.length;
+    }
+
+    public long getTotalMoves() {
+        long total = 0;
+        for (int count : moves) {
+            total += count;
+        }
+        return total;
+    }
+
+    public double getElapsedSeconds() {
+        return elapsedNanos / 1e9;
+    }
+
+    public double getGamesPerSecond() {
+        return elapsedNanos == 0 ? 0 : scores.length / getElapsedSeconds();
+    }
+
+    public double getMovesPerSecond() {
+        return elapsedNanos == 0 ? 0 : getTotalMoves() / getElapsedSeconds();
+    }
+
+    public void print(PrintStream out) {
+        out.println(String.format(Locale.ROOT, "Games: %d in %.2f s, %.2f games/s, %.0f moves/s",
+                getGames(), getElapsedSeconds(), getGamesPerSecond(), getMovesPerSecond()));
+        out.println(String.format(Locale.ROOT, "Score: min %d, mean %.1f, sd %.1f, max %d",
+                getMinScore(), getMeanScore(), getScoreDeviation(), getMaxScore()));
+        StringBuilder sb = new StringBuilder("Percentiles:");
+        for (int percentile : PERCENTILES) {
+            sb.append(" p").append(percentile).append(' ').append(getScorePercentile(percentile / 100d));
+        }
+        out.println(sb);
+        out.println("Max tile:");
+        int[] histogram = getMaxTileHistogram();
+        for (int exponent = 1; exponent < histogram.length; exponent++) {
+            if (histogram[exponent] > 0) {
+                out.println(String.format(Locale.ROOT, "%8d %8d %6.2f%%", BitBoard.toValue(exponent),
+                        histogram[exponent], 100d * histogram[exponent] / getGames()));
+            }
+        }
+        sb = new StringBuilder("Win rate:");
+        for (int goal : GOALS) {
+            sb.append(String.format(Locale.ROOT, " %d %.2f%%", goal, 100 * getWinRate(goal)));
+        }
+        out.println(sb);
+    }
+
+    /**
+     * Writes one line per game: index, score, max tile and moves
+     * @param out
+     */
+    public void printGames(PrintStream out) {
+        out.println("game,score,maxTile,moves");
+        for (int i = 0; i < scores.length; i++) {
+            out.println(i + "," + scores[i] + "," + maxTiles[i] + "," + moves[i]);
+        }
+    }
+}
@@ -0,0 +1,328 @@
+/*
+ * Copyright (C) 2013-2019 2048FX
+ * Jose Pereda, Bruno Borges & Jens Deters
+ * All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpereda.game2048.sim;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.jpereda.game2048.Direction;
+import org.jpereda.game2048.ai.Evaluator;
+import org.jpereda.game2048.ai.ExpectimaxSolver;
+import org.jpereda.game2048.ai.HeuristicWeights;
+import org.jpereda.game2048.ai.NTupleNetwork;
+import org.jpereda.game2048.ai.SharedTranspositionTable;
+import org.jpereda.game2048.ai.TableEvaluator;
+import org.jpereda.game2048.engine.BitBoard;
+import org.jpereda.game2048.engine.BitBoardEngine;
+import org.jpereda.game2048.engine.GameRandom;
+
+/**
+ * Plays 4x4 games without user interface, on all the cores, with the rules
+ * of the engine package. 
+ * 
+ * Each game has its own generator, with a seed taken from the base seed, so
+ * the results only depend on the base seed, the strategy and the number of 
+ * games, not on the number of threads.
+ *
+ * @author jpereda
+ */
+public class Simulator {
+
+    public static final int DEFAULT_GAMES = 1000;
+    public static final long DEFAULT_SEED = 2048;
+
+    private int games = DEFAULT_GAMES;
+    private StrategyType strategyType = StrategyType.GREEDY;
+    private int depth = ExpectimaxSolver.DEFAULT_DEPTH;
+    private long seed = DEFAULT_SEED;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    // 0 to share the cores among the games
+    private int threadsPerSearch;
+    // 0 to share the default budget among the games
+    private long tableBytes;
+    private Evaluator evaluator;
+    private PrintStream progress;
+
+    public int getGames() {
+        return games;
+    }
+
+    public void setGames(int games) {
+        if (games < 0) {
+            throw new IllegalArgumentException("Number of games can't be negative: " + games);
+        }
+        this.games = games;
+    }
+
+    public StrategyType getStrategyType() {
+        return strategyType;
+    }
+
+    public void setStrategyType(StrategyType strategyType) {
+        this.strategyType = strategyType;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public void setDepth(int depth) {
+        if (depth < 1) {
+            throw new IllegalArgumentException("Depth must be at least 1: " + depth);
+        }
+        this.depth = depth;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public void setThreads(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Threads must be at least 1: " + threads);
+        }
+        this.threads = threads;
+    }
+
+    public int getThreadsPerSearch() {
+        return threadsPerSearch;
+    }
+
+    /**
+     * @param threadsPerSearch maximum number of threads of each search of
+     * the parallel strategy, on top of the threads that play the games, or
+     * 0 to split the available processors among those threads
+     */
+    public void setThreadsPerSearch(int threadsPerSearch) {
+        if (threadsPerSearch < 0) {
+            throw new IllegalArgumentException("Threads per search can't be negative: " + threadsPerSearch);
+        }
+        this.threadsPerSearch = threadsPerSearch;
+    }
+
+    /**
+     * @return the threads of each search of the parallel strategy
+     */
+    int getSearchThreads() {
+        if (threadsPerSearch > 0) {
+            return threadsPerSearch;
+        }
+        return Math.max(1, Runtime.getRuntime().availableProcessors() / threads);
+    }
+
+    /**
+     * @return the memory budget of the transposition table of each search of
+     * the parallel strategy. Unless it is set, it is
+     * {@link SharedTranspositionTable#getDefaultSize()} divided by the
+     * threads that play the games, so the total stays within that budget
+     */
+    public long getTableBytes() {
+        if (tableBytes > 0) {
+            return tableBytes;
+        }
+        return Math.max(SharedTranspositionTable.MIN_SIZE, SharedTranspositionTable.getDefaultSize() / threads);
+    }
+
+    /**
+     * @param tableBytes memory budget of the transposition table of each
+     * search of the parallel strategy. Every thread that plays games has its
+     * own table, so the total is this budget times {@link #getThreads()}
+     */
+    public void setTableBytes(long tableBytes) {
+        if (tableBytes < SharedTranspositionTable.MIN_SIZE) {
+            throw new IllegalArgumentException("Table size must be at least "
+                    + SharedTranspositionTable.MIN_SIZE + " bytes: " + tableBytes);
+        }
+        this.tableBytes = tableBytes;
+    }
+
+    public Evaluator getEvaluator() {
+        return evaluator;
+    }
+
+    /**
+     * @param evaluator shared by all the threads, or null for a 
+     * {@link TableEvaluator} with the default weights
+     */
+    public void setEvaluator(Evaluator evaluator) {
+        this.evaluator = evaluator;
+    }
+
+    /**
+     * @param progress stream to report every 10% of the games, or null
+     */
+    public void setProgress(PrintStream progress) {
+        this.progress = progress;
+    }
+
+    public SimulationResult run() throws InterruptedException {
+        final int[] scores = new int[games];
+        final int[] maxTiles = new int[games];
+        final int[] moves = new int[games];
+        final long[] seeds = new long[games];
+        GameRandom base = new GameRandom(seed);
+        for (int i = 0; i < games; i++) {
+            seeds[i] = base.nextLong();
+        }
+        final Evaluator shared = evaluator != null ? evaluator : new TableEvaluator();
+        final AtomicInteger next = new AtomicInteger();
+        final AtomicInteger done = new AtomicInteger();
+        final int step = Math.max(1, games / 10);
+        final int searchThreads = getSearchThreads();
+        final long searchTableBytes = getTableBytes();
+
+        long start = System.nanoTime();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>(threads);
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        Strategy strategy = strategyType.create(shared, depth, searchThreads, searchTableBytes);
+                        try {
+                            BitBoardEngine engine = new BitBoardEngine();
+                            int game;
+                            while ((game = next.getAndIncrement()) < games) {
+                                moves[game] = play(engine, strategy, new GameRandom(seeds[game]));
+                                scores[game] = engine.getScore();
+                                maxTiles[game] = BitBoard.toValue(BitBoard.getMaxExponent(engine.getBoard()));
+                                int count = done.incrementAndGet();
+                                if (progress != null && count % step == 0) {
+                                    progress.println(String.format(Locale.ROOT, "%d/%d games", count, games));
+                                }
+                            }
+                        } finally {
+                            if (strategy instanceof ParallelExpectimaxStrategy) {
+                                ((ParallelExpectimaxStrategy) strategy).close();
+                            }
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException("Simulation failed", e.getCause());
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return new SimulationResult(scores, maxTiles, moves, System.nanoTime() - start);
+    }
+
+    /**
+     * Plays a game from the same first tiles as the game, until no tile can
+     * move
+     * @return the number of moves played
+     */
+    static int play(BitBoardEngine engine, Strategy strategy, GameRandom random) {
+        engine.clear();
+        random.startGame(engine);
+        int count = 0;
+        while (engine.canMove()) {
+            Direction direction = strategy.choose(engine.getBoard(), random);
+            if (direction == null || !engine.move(direction).isMoved()) {
+                break;
+            }
+            spawn(engine, random);
+            count++;
+        }
+        return count;
+    }
+
+    private static void spawn(BitBoardEngine engine, GameRandom random) {
+        int cell = random.nextCell(engine.getEmptyCells());
+        if (cell >= 0) {
+            engine.setValue(cell % BitBoard.SIZE, cell / BitBoard.SIZE, random.nextTileValue());
+        }
+    }
+
+    private static void usage() {
+        System.err.println("Usage: Simulator [-games n] [-strategy random|greedy|expectimax|parallel_expectimax]");
+        System.err.println("                 [-depth d] [-seed s] [-threads t] [-threads-per-search t]");
+        System.err.println("                 [-table-mb m] [-weights file] [-model file] [-csv file]");
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Simulator simulator = new Simulator();
+        File csv = null;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                String arg = args[i];
+                if (i + 1 == args.length) {
+                    throw new IllegalArgumentException("Missing value for " + arg);
+                }
+                String value = args[++i];
+                switch (arg) {
+                    case "-games": simulator.setGames(Integer.parseInt(value)); break;
+                    case "-strategy": simulator.setStrategyType(StrategyType.valueOf(value.toUpperCase(Locale.ROOT))); break;
+                    case "-depth": simulator.setDepth(Integer.parseInt(value)); break;
+                    case "-seed": simulator.setSeed(Long.parseLong(value)); break;
+                    case "-threads": simulator.setThreads(Integer.parseInt(value)); break;
+                    case "-threads-per-search": simulator.setThreadsPerSearch(Integer.parseInt(value)); break;
+                    case "-table-mb": simulator.setTableBytes(Long.parseLong(value) << 20); break;
+                    case "-weights": simulator.setEvaluator(new TableEvaluator(HeuristicWeights.load(new File(value)))); break;
+                    case "-model": simulator.setEvaluator(NTupleNetwork.map(new File(value))); break;
+                    case "-csv": csv = new File(value); break;
+                    default: throw new IllegalArgumentException("Unknown option " + arg);
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            usage();
+            System.exit(1);
+        }
+
+        StrategyType type = simulator.getStrategyType();
+        System.out.println(String.format(Locale.ROOT, "Playing %d games, strategy %s%s, seed %d, %d threads%s",
+                simulator.getGames(), type.name().toLowerCase(Locale.ROOT),
+                type == StrategyType.EXPECTIMAX || type.isParallel() ? " depth " + simulator.getDepth() : "",
+                simulator.getSeed(), simulator.getThreads(),
+                type.isParallel() ? String.format(Locale.ROOT, ", %d per search, %d MB table per search",
+                        simulator.getSearchThreads(), simulator.getTableBytes() >> 20) : ""));
+        simulator.setProgress(System.out);
+        SimulationResult result = simulator.run();
+        result.print(System.out);
+        if (csv != null) {
+            try (PrintStream out = new PrintStream(new FileOutputStream(csv), false, "UTF-8")) {
+                result.printGames(out);
+            }
+        }
+    }
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright (C) 2013-2019 2048FX
+ * Jose Pereda, Bruno Borges & Jens Deters
+ * All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpereda.game2048.sim;
+
+import org.jpereda.game2048.Direction;
+import org.jpereda.game2048.engine.GameRandom;
+
+/**
+ * Picks the movement to play on a 4x4 bitboard. Instances are used by a
+ * single thread.
+ *
+ * @author jpereda
+ */
+public interface Strategy {
+
+    /**
+     * @param board a 4x4 bitboard
+     * @param random generator of the game
+     * @return the movement to play, or null if no tile can move
+     */
+    Direction choose(long board, GameRandom random);
+}
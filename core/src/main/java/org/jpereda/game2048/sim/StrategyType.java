@@ -0,0 +1,91 @@
+/*
+ * Copyright (C) 2013-2019 2048FX
+ * Jose Pereda, Bruno Borges & Jens Deters
+ * All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpereda.game2048.sim;
+
+import org.jpereda.game2048.ai.Evaluator;
+import org.jpereda.game2048.ai.SharedTranspositionTable;
+
+/**
+ * Strategies available to the {@link Simulator}
+ *
+ * @author jpereda
+ */
+public enum StrategyType {
+
+    RANDOM {
+        @Override
+        public Strategy create(Evaluator evaluator, int depth) {
+            return new RandomStrategy();
+        }
+    },
+    GREEDY {
+        @Override
+        public Strategy create(Evaluator evaluator, int depth) {
+            return new GreedyStrategy();
+        }
+    },
+    EXPECTIMAX {
+        @Override
+        public Strategy create(Evaluator evaluator, int depth) {
+            return new ExpectimaxStrategy(evaluator, depth);
+        }
+    },
+    PARALLEL_EXPECTIMAX {
+        @Override
+        public Strategy create(Evaluator evaluator, int depth) {
+            return create(evaluator, depth, Runtime.getRuntime().availableProcessors(),
+                    SharedTranspositionTable.getDefaultSize());
+        }
+
+        @Override
+        public Strategy create(Evaluator evaluator, int depth, int threadsPerSearch, long tableBytes) {
+            return new ParallelExpectimaxStrategy(evaluator, depth, threadsPerSearch, tableBytes);
+        }
+    };
+
+    /**
+     * @param evaluator of the boards, shared by all the strategies. It is
+     * ignored by the strategies that don't search
+     * @param depth of the search
+     * @return a new strategy, for one thread
+     */
+    public abstract Strategy create(Evaluator evaluator, int depth);
+
+    /**
+     * @param evaluator of the boards, shared by all the strategies. It is
+     * ignored by the strategies that don't search
+     * @param depth of the search
+     * @param threadsPerSearch maximum number of threads of each search, for
+     * the strategies that search in parallel
+     * @param tableBytes memory budget of the transposition table of each
+     * search, for the strategies that search in parallel
+     * @return a new strategy, for one thread. If it is {@link AutoCloseable},
+     * it has to be closed once it is not used
+     */
+    public Strategy create(Evaluator evaluator, int depth, int threadsPerSearch, long tableBytes) {
+        return create(evaluator, depth);
+    }
+
+    /**
+     * @return true if the strategy searches on several threads
+     */
+    public boolean isParallel() {
+        return this == PARALLEL_EXPECTIMAX;
+    }
+}
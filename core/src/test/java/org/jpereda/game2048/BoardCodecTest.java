@@ -0,0 +1,85 @@
+/*
+ * Copyright (C) 2013-2019 2048FX
+ * Jose Pereda, Bruno Borges & Jens Deters
+ * All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpereda.game2048;
+
+import java.util.Random;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ *
+ * @author jpereda
+ */
+public class BoardCodecTest {
+
+    @Test
+    public void encodesPowersFromLastCell() {
+        int[] grid = new int[16];
+        grid[0] = 2;
+        grid[1] = 2048;
+        grid[15] = 262144;
+        String stored = BoardCodec.storeBoard(grid);
+        assertEquals(32, stored.length());
+        assertEquals("12" + "00000000000000000000000000" + "0b01", stored);
+    }
+
+    @Test
+    public void roundTrip() {
+        Random random = new Random(2048);
+        for (int size = 3; size <= 8; size++) {
+            for (int n = 0; n < 100; n++) {
+                int[] grid = new int[size * size];
+                for (int cell = 0; cell < grid.length; cell++) {
+                    int exponent = random.nextInt(19);
+                    grid[cell] = exponent == 0 ? 0 : 1 << exponent;
+                }
+                String stored = BoardCodec.storeBoard(grid);
+                assertEquals(2 * grid.length, stored.length());
+                assertArrayEquals(grid, BoardCodec.restoreBoard(stored));
+            }
+        }
+    }
+
+    @Test
+    public void acceptsUpperCase() {
+        assertArrayEquals(new int[] {2048, 0}, BoardCodec.restoreBoard("000B"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsOddLength() {
+        BoardCodec.restoreBoard("01020");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsInvalidChars() {
+        BoardCodec.restoreBoard("01zz");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsSigns() {
+        BoardCodec.restoreBoard("-1");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsValuesOutOfRange() {
+        BoardCodec.restoreBoard("ff01");
+    }
+}
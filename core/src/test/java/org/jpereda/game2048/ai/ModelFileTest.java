@@ -0,0 +1,174 @@
+/*
+ * Copyright (C) 2013-2019 2048FX
+ * Jose Pereda, Bruno Borges & Jens Deters
+ * All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpereda.game2048.ai;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ *
+ * @author jpereda
+ */
+public class ModelFileTest {
+
+    private static final int[][] TUPLES = {{0, 1, 2}, {4, 5}};
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void readsWhatIsWritten() throws IOException {
+        ByteBuffer[] weights = randomWeights(new Random(1));
+        File file = write(weights);
+        assertEquals(0, file.length() % ModelFile.ALIGNMENT);
+
+        check(weights, ModelFile.read(file));
+        check(weights, ModelFile.map(file));
+    }
+
+    @Test
+    public void readWeightsCanBeChanged() throws IOException {
+        ModelFile model = ModelFile.read(write(randomWeights(new Random(2))));
+        model.getWeights()[0].putFloat(0, 1f);
+        assertEquals(1f, model.getWeights()[0].getFloat(0), 0f);
+        assertTrue(ModelFile.map(write(randomWeights(new Random(2)))).getWeights()[0].isReadOnly());
+    }
+
+    @Test
+    public void rejectsWrongMagic() throws IOException {
+        File file = write(randomWeights(new Random(3)));
+        corrupt(file, 0, (byte) 'X');
+        expectInvalid(file, "Not a model file");
+    }
+
+    @Test
+    public void rejectsOtherVersions() throws IOException {
+        File file = write(randomWeights(new Random(4)));
+        corrupt(file, 8, (byte) (ModelFile.VERSION + 1));
+        expectInvalid(file, "Unsupported model version");
+    }
+
+    @Test
+    public void rejectsCorruptedHeader() throws IOException {
+        File file = write(randomWeights(new Random(5)));
+        // first cell of the first tuple
+        corrupt(file, 24, (byte) 7);
+        expectInvalid(file, "Wrong header checksum");
+    }
+
+    @Test
+    public void rejectsWrongHeaderLength() throws IOException {
+        File file = write(randomWeights(new Random(6)));
+        corrupt(file, 15, (byte) 0x7F);
+        expectInvalid(file, "Wrong header length");
+    }
+
+    @Test
+    public void rejectsTruncatedFile() throws IOException {
+        File file = write(randomWeights(new Random(7)));
+        try (RandomAccessFile output = new RandomAccessFile(file, "rw")) {
+            output.setLength(file.length() - ModelFile.ALIGNMENT);
+        }
+        expectInvalid(file, "out of the file");
+        try (RandomAccessFile output = new RandomAccessFile(file, "rw")) {
+            output.setLength(10);
+        }
+        expectInvalid(file, "Unexpected end of file");
+    }
+
+    @Test
+    public void networkSurvivesStoreAndLoad() throws IOException {
+        NTupleNetwork network = new NTupleNetwork(TUPLES);
+        Random random = new Random(8);
+        long board = 0;
+        for (int i = 0; i < 100; i++) {
+            board = random.nextLong() & 0x3333333333333333L;
+            network.update(board, random.nextFloat());
+        }
+        File file = folder.newFile();
+        network.store(file);
+        NTupleNetwork loaded = NTupleNetwork.load(file);
+        NTupleNetwork mapped = NTupleNetwork.map(file);
+        assertTrue(mapped.isReadOnly());
+        for (int i = 0; i < 100; i++) {
+            board = random.nextLong() & 0x3333333333333333L;
+            assertEquals(network.value(board), loaded.value(board), 0f);
+            assertEquals(network.value(board), mapped.value(board), 0f);
+        }
+    }
+
+    private File write(ByteBuffer[] weights) throws IOException {
+        File file = folder.newFile();
+        ModelFile.write(file, TUPLES, weights);
+        return file;
+    }
+
+    private static ByteBuffer[] randomWeights(Random random) {
+        ByteBuffer[] weights = new ByteBuffer[TUPLES.length];
+        for (int t = 0; t < TUPLES.length; t++) {
+            int count = NTupleNetwork.getWeightCount(TUPLES[t].length);
+            weights[t] = ByteBuffer.allocateDirect(4 * count).order(ByteOrder.LITTLE_ENDIAN);
+            for (int i = 0; i < count; i++) {
+                weights[t].putFloat(4 * i, random.nextFloat());
+            }
+        }
+        return weights;
+    }
+
+    private static void check(ByteBuffer[] weights, ModelFile model) {
+        assertEquals(TUPLES.length, model.getTuples().length);
+        for (int t = 0; t < TUPLES.length; t++) {
+            assertArrayEquals(TUPLES[t], model.getTuples()[t]);
+            ByteBuffer buffer = model.getWeights()[t];
+            assertEquals(weights[t].capacity(), buffer.capacity());
+            assertEquals(ByteOrder.LITTLE_ENDIAN, buffer.order());
+            for (int i = 0; i < buffer.capacity(); i += 4) {
+                assertEquals(weights[t].getFloat(i), buffer.getFloat(i), 0f);
+            }
+        }
+    }
+
+    private static void corrupt(File file, long position, byte value) throws IOException {
+        try (RandomAccessFile output = new RandomAccessFile(file, "rw")) {
+            output.seek(position);
+            output.write(value);
+        }
+    }
+
+    private static void expectInvalid(File file, String message) {
+        try {
+            ModelFile.read(file);
+            fail("Invalid model read: " + file);
+        } catch (IOException e) {
+            assertTrue(e.getMessage(), e.getMessage().startsWith(message) || e.getMessage().contains(message));
+        }
+    }
+}
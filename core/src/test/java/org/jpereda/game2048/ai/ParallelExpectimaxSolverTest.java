@@ -0,0 +1,120 @@
+/*
+ * Copyright (C) 2013-2019 2048FX
+ * Jose Pereda, Bruno Borges & Jens Deters
+ * All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpereda.game2048.ai;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+import org.jpereda.game2048.Direction;
+import org.jpereda.game2048.engine.BitBoard;
+import org.jpereda.game2048.engine.MoveTables;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ *
+ * @author jpereda
+ */
+public class ParallelExpectimaxSolverTest {
+
+    // 2 4 / 8 16 on the first row, 2 on the second
+    private static final long BOARD = BitBoard.setValue(BitBoard.setValue(BitBoard.setValue(
+            BitBoard.setValue(BitBoard.setValue(0L, 0, 0, 2), 1, 0, 4), 2, 0, 8), 3, 0, 16), 0, 1, 2);
+
+    private ParallelExpectimaxSolver solver;
+
+    @Before
+    public void createSolver() {
+        solver = new ParallelExpectimaxSolver(new TableEvaluator(), 2,
+                new SharedTranspositionTable(SharedTranspositionTable.MIN_SIZE << 10));
+    }
+
+    @After
+    public void closeSolver() {
+        solver.close();
+    }
+
+    @Test
+    public void findsAMovementThatChangesTheBoard() throws InterruptedException {
+        solver.setDepth(2);
+        Direction direction = solver.findBestMoveInterruptibly(BOARD);
+        assertNotNull(direction);
+        assertNotEquals(BOARD, MoveTables.move(BOARD, direction));
+        assertTrue(solver.getNodes() > 0);
+        // symmetric movements tie, and the workers may break the tie either way
+        Direction again = solver.findBestMove(BOARD);
+        assertNotNull(again);
+        assertNotEquals(BOARD, MoveTables.move(BOARD, again));
+    }
+
+    @Test
+    public void findsNothingOnAStuckBoard() throws InterruptedException {
+        long board = 0L;
+        for (int cell = 0; cell < BitBoard.CELLS; cell++) {
+            board = BitBoard.setExponent(board, cell, 1 + (cell + cell / BitBoard.SIZE) % 2);
+        }
+        assertNull(solver.findBestMoveInterruptibly(board));
+    }
+
+    @Test(expected = InterruptedException.class)
+    public void failsIfAlreadyInterrupted() throws InterruptedException {
+        Thread.currentThread().interrupt();
+        solver.findBestMoveInterruptibly(BOARD);
+    }
+
+    @Test
+    public void stopsWhenInterrupted() throws InterruptedException {
+        // far too deep to end before it is interrupted
+        solver.setDepth(12);
+        solver.setMinProbability(0f);
+        final CountDownLatch started = new CountDownLatch(1);
+        final AtomicReference<Throwable> error = new AtomicReference<>();
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                started.countDown();
+                try {
+                    solver.findBestMoveInterruptibly(BOARD);
+                    fail("The search wasn't interrupted");
+                } catch (InterruptedException e) {
+                    // expected
+                } catch (Throwable t) {
+                    error.set(t);
+                }
+            }
+        });
+        thread.start();
+        started.await();
+        Thread.sleep(100);
+        thread.interrupt();
+        thread.join(5000);
+        assertTrue("The search didn't stop", !thread.isAlive());
+        assertNull(error.get());
+
+        // the solver can be used again
+        solver.setDepth(2);
+        assertNotNull(solver.findBestMoveInterruptibly(BOARD));
+    }
+}
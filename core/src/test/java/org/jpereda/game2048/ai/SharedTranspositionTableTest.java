@@ -0,0 +1,69 @@
+/*
+ * Copyright (C) 2013-2019 2048FX
+ * Jose Pereda, Bruno Borges & Jens Deters
+ * All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpereda.game2048.ai;
+
+import org.jpereda.game2048.engine.BitBoard;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ *
+ * @author jpereda
+ */
+public class SharedTranspositionTableTest {
+
+    private static final long BOARD = BitBoard.setValue(BitBoard.setValue(0L, 0, 0, 2), 1, 0, 4);
+
+    private final SharedTranspositionTable table = new SharedTranspositionTable(SharedTranspositionTable.MIN_SIZE);
+
+    @Test
+    public void keepsTheDeeperValueOfTheSameBoard() {
+        table.put(BOARD, 4, 10f);
+        table.put(BOARD, 1, 20f);
+        assertEquals(10f, table.get(BOARD, 4), 0f);
+        // the deeper value answers shallower probes too
+        assertEquals(10f, table.get(BOARD, 1), 0f);
+    }
+
+    @Test
+    public void replacesTheValueOfTheSameOrAHigherDepth() {
+        table.put(BOARD, 2, 10f);
+        table.put(BOARD, 3, 20f);
+        assertEquals(20f, table.get(BOARD, 3), 0f);
+        table.put(BOARD, 3, 30f);
+        assertEquals(30f, table.get(BOARD, 3), 0f);
+    }
+
+    @Test
+    public void returnsNothingForAShallowerValue() {
+        table.put(BOARD, 2, 10f);
+        assertEquals(TranspositionTable.MISSING, table.get(BOARD, 3), 0f);
+    }
+
+    @Test
+    public void replacesTheValuesOfAPreviousGeneration() {
+        table.put(BOARD, 4, 10f);
+        table.clear();
+        assertEquals(TranspositionTable.MISSING, table.get(BOARD, 1), 0f);
+        table.put(BOARD, 1, 20f);
+        table.put(BOARD, 1, 30f);
+        assertEquals(30f, table.get(BOARD, 1), 0f);
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright (C) 2013-2019 2048FX
+ * Jose Pereda, Bruno Borges & Jens Deters
+ * All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpereda.game2048.engine;
+
+import org.jpereda.game2048.GridOperator;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ *
+ * @author jpereda
+ */
+public class GameRandomTest {
+
+    @Test
+    public void sameSeedSameSequence() {
+        GameRandom a = new GameRandom(2048);
+        GameRandom b = new GameRandom(2048);
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(a.nextLong(), b.nextLong());
+        }
+        assertNotEquals(new GameRandom(1).nextLong(), new GameRandom(2).nextLong());
+    }
+
+    @Test
+    public void restoredStateContinuesSequence() {
+        GameRandom random = new GameRandom(42);
+        for (int i = 0; i < 17; i++) {
+            random.nextInt(16);
+        }
+        GameRandom split = random.split();
+        for (GameRandom original : new GameRandom[] {random, split}) {
+            GameRandom restored = GameRandom.fromState(original.toState());
+            assertEquals(original.getSeed(), restored.getSeed());
+            for (int i = 0; i < 1000; i++) {
+                assertEquals(original.nextLong(), restored.nextLong());
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsMissingValues() {
+        GameRandom.fromState("2a:5");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsTooManyValues() {
+        GameRandom.fromState("2a:5:7:9");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsInvalidNumbers() {
+        GameRandom.fromState("2a:xyz:7");
+    }
+
+    @Test
+    public void tileValuesAreTwoOrFour() {
+        GameRandom random = new GameRandom(7);
+        int fours = 0;
+        for (int i = 0; i < 10000; i++) {
+            int value = random.nextTileValue();
+            if (value == 4) {
+                fours++;
+            } else {
+                assertEquals(2, value);
+            }
+        }
+        // 10% of fours
+        assertEquals(1000, fours, 150);
+    }
+
+    @Test
+    public void spawnAddsOneTileOnEmptyCell() {
+        GameRandom random = new GameRandom(3);
+        long board = 0;
+        for (int n = 1; n <= BitBoard.CELLS; n++) {
+            long next = random.spawn(board);
+            assertEquals(BitBoard.CELLS - n, BitBoard.countEmpty(next));
+            for (int cell = 0; cell < BitBoard.CELLS; cell++) {
+                if (BitBoard.getExponent(board, cell) != 0) {
+                    assertEquals(BitBoard.getExponent(board, cell), BitBoard.getExponent(next, cell));
+                }
+            }
+            board = next;
+        }
+        assertEquals(board, random.spawn(board));
+    }
+
+    @Test
+    public void startGameAddsOneOrTwoTilesButNeverTwoFours() {
+        GameRandom random = new GameRandom(4);
+        BitBoardEngine engine = new BitBoardEngine();
+        int twoTiles = 0;
+        for (int i = 0; i < 10000; i++) {
+            engine.clear();
+            random.startGame(engine);
+            long board = engine.getBoard();
+            int tiles = BitBoard.CELLS - BitBoard.countEmpty(board);
+            assertTrue(tiles == 1 || tiles == 2);
+            int fours = 0;
+            for (int cell = 0; cell < BitBoard.CELLS; cell++) {
+                int exponent = BitBoard.getExponent(board, cell);
+                assertTrue(exponent <= 2);
+                if (exponent == 2) {
+                    fours++;
+                }
+            }
+            assertTrue(fours <= 1);
+            if (tiles == 2) {
+                twoTiles++;
+            }
+        }
+        assertEquals(8000, twoTiles, 200);
+    }
+
+    @Test
+    public void startGameUsesTheWholeGrid() {
+        GameRandom random = new GameRandom(5);
+        GridEngine engine = new GridEngine(new GridOperator(6));
+        boolean[] used = new boolean[36];
+        for (int i = 0; i < 2000; i++) {
+            engine.clear();
+            random.startGame(engine);
+            for (int cell = 0; cell < used.length; cell++) {
+                if (engine.getValue(cell % 6, cell / 6) > 0) {
+                    used[cell] = true;
+                }
+            }
+        }
+        for (boolean cell : used) {
+            assertTrue(cell);
+        }
+    }
+}
@@ -0,0 +1,319 @@
+/*
+ * Copyright (C) 2013-2019 2048FX
+ * Jose Pereda, Bruno Borges & Jens Deters
+ * All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpereda.game2048.engine;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.jpereda.game2048.Direction;
+import org.jpereda.game2048.GridOperator;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Compares the engines with a naive implementation of the rules, on random
+ * grids and on random games
+ *
+ * @author jpereda
+ */
+public class MoveEngineTest {
+
+    private static final int BOARDS = 2000;
+
+    @Test
+    public void gridEngineMovesLikeReference() {
+        for (int size = 2; size <= 8; size++) {
+            checkRandomBoards(new GridEngine(new GridOperator(size)), new Random(size));
+        }
+    }
+
+    @Test
+    public void bitBoardEngineMovesLikeReference() {
+        checkRandomBoards(new BitBoardEngine(), new Random(4));
+    }
+
+    @Test
+    public void gridEngineKeepsTrackingDuringGames() {
+        for (int size = 3; size <= 6; size++) {
+            checkRandomGames(new GridEngine(new GridOperator(size)), new Random(size));
+        }
+    }
+
+    @Test
+    public void bitBoardEngineKeepsTrackingDuringGames() {
+        checkRandomGames(new BitBoardEngine(), new Random(4));
+    }
+
+    @Test
+    public void mergesOnlyOncePerMovement() {
+        MoveEngine engine = new GridEngine(new GridOperator(4));
+        setRow(engine, 0, 2, 2, 2, 2);
+        setRow(engine, 1, 4, 4, 8, 0);
+        setRow(engine, 2, 2, 0, 2, 4);
+        MoveResult result = engine.move(Direction.LEFT);
+        assertRow(engine, 0, 4, 4, 0, 0);
+        assertRow(engine, 1, 8, 8, 0, 0);
+        assertRow(engine, 2, 4, 4, 0, 0);
+        assertEquals(4 + 4 + 8 + 4, result.getPoints());
+        assertEquals(result.getPoints(), engine.getScore());
+    }
+
+    @Test
+    public void bitBoardEngineAgreesWithGridEngine() {
+        Random random = new Random(16);
+        MoveEngine grid = new GridEngine(new GridOperator(BitBoard.SIZE));
+        MoveEngine bitBoard = new BitBoardEngine();
+        for (int n = 0; n < BOARDS; n++) {
+            int[] values = randomValues(BitBoard.SIZE, random);
+            Direction direction = Direction.values()[random.nextInt(4)];
+            load(grid, values);
+            load(bitBoard, values);
+            assertEquals(moves(grid.move(direction)), moves(bitBoard.move(direction)));
+            assertEquals(Reference.toString(values(grid)), Reference.toString(values(bitBoard)));
+        }
+    }
+
+    private static void checkRandomBoards(MoveEngine engine, Random random) {
+        int size = engine.getGridSize();
+        for (int n = 0; n < BOARDS; n++) {
+            int[] values = randomValues(size, random);
+            load(engine, values);
+            checkTracking(engine);
+            Direction direction = Direction.values()[random.nextInt(4)];
+            Reference reference = new Reference(size, values);
+            reference.move(direction);
+            MoveResult result = engine.move(direction);
+
+            String board = Reference.toString(values) + " " + direction;
+            assertEquals(board, reference.moves, moves(result));
+            assertEquals(board, reference.points, result.getPoints());
+            assertEquals(board, !reference.moves.isEmpty(), result.isMoved());
+            assertEquals(board, Reference.toString(reference.values), Reference.toString(values(engine)));
+            checkTracking(engine);
+        }
+    }
+
+    private static void checkRandomGames(MoveEngine engine, Random random) {
+        int size = engine.getGridSize();
+        for (int game = 0; game < 20; game++) {
+            engine.clear();
+            GameRandom gameRandom = new GameRandom(random.nextLong());
+            int score = 0;
+            spawn(engine, gameRandom);
+            spawn(engine, gameRandom);
+            while (engine.canMove()) {
+                Reference reference = new Reference(size, values(engine));
+                Direction direction = Direction.values()[random.nextInt(4)];
+                reference.move(direction);
+                MoveResult result = engine.move(direction);
+                assertEquals(reference.moves, moves(result));
+                score += reference.points;
+                assertEquals(score, engine.getScore());
+                checkTracking(engine);
+                if (result.isMoved()) {
+                    spawn(engine, gameRandom);
+                    checkTracking(engine);
+                }
+            }
+            assertEquals(0, Reference.countEmpty(values(engine)));
+            assertEquals(0, Reference.countPairs(size, values(engine)));
+        }
+    }
+
+    private static void spawn(MoveEngine engine, GameRandom random) {
+        int cell = random.nextCell(engine.getEmptyCells());
+        assertTrue(cell >= 0);
+        engine.setValue(cell % engine.getGridSize(), cell / engine.getGridSize(), random.nextTileValue());
+    }
+
+    /**
+     * The empty cells and the mergeable pairs, kept by the engine, must be
+     * the same as counted on the grid
+     */
+    private static void checkTracking(MoveEngine engine) {
+        int size = engine.getGridSize();
+        int[] values = values(engine);
+        String board = Reference.toString(values);
+        EmptyCells emptyCells = engine.getEmptyCells();
+        assertEquals(board, Reference.countEmpty(values), emptyCells.size());
+        for (int cell = 0; cell < values.length; cell++) {
+            assertEquals(board, values[cell] == 0, emptyCells.contains(cell));
+        }
+        for (int i = 0; i < emptyCells.size(); i++) {
+            assertEquals(board, 0, values[emptyCells.get(i)]);
+        }
+        assertEquals(board, Reference.countPairs(size, values), engine.getMergeablePairs());
+        assertEquals(board, emptyCells.size() > 0 || engine.getMergeablePairs() > 0, engine.canMove());
+    }
+
+    private static int[] randomValues(int size, Random random) {
+        int[] values = new int[size * size];
+        // few different values, so many tiles merge
+        int maxExponent = 1 + random.nextInt(BitBoard.MAX_EXPONENT - 2);
+        int minExponent = Math.max(1, maxExponent - 3);
+        for (int cell = 0; cell < values.length; cell++) {
+            if (random.nextInt(3) > 0) {
+                values[cell] = 1 << (minExponent + random.nextInt(maxExponent - minExponent + 1));
+            }
+        }
+        return values;
+    }
+
+    private static void load(MoveEngine engine, int[] values) {
+        int size = engine.getGridSize();
+        engine.clear();
+        for (int cell = 0; cell < values.length; cell++) {
+            if (values[cell] > 0) {
+                engine.setValue(cell % size, cell / size, values[cell]);
+            }
+        }
+    }
+
+    private static int[] values(MoveEngine engine) {
+        int size = engine.getGridSize();
+        int[] values = new int[size * size];
+        for (int cell = 0; cell < values.length; cell++) {
+            values[cell] = engine.getValue(cell % size, cell / size);
+        }
+        return values;
+    }
+
+    private static void setRow(MoveEngine engine, int y, int... values) {
+        for (int x = 0; x < values.length; x++) {
+            engine.setValue(x, y, values[x]);
+        }
+    }
+
+    private static void assertRow(MoveEngine engine, int y, int... values) {
+        for (int x = 0; x < values.length; x++) {
+            assertEquals("(" + x + ", " + y + ")", values[x], engine.getValue(x, y));
+        }
+    }
+
+    /**
+     * @return the moved and merged tiles, as sorted "from>to" strings, with
+     * a "+" for merged tiles
+     */
+    private static List<String> moves(MoveResult result) {
+        List<String> moves = new ArrayList<>();
+        for (int i = 0; i < result.size(); i++) {
+            moves.add(result.getFrom(i) + ">" + result.getTo(i) + (result.isMerged(i) ? "+" : ""));
+        }
+        Collections.sort(moves);
+        return moves;
+    }
+
+    /**
+     * The rules, as simple as possible: every line is compacted towards the
+     * wall, and then equal neighbours are merged from the wall
+     */
+    private static final class Reference {
+
+        private final int size;
+        private final int[] values;
+        private final List<String> moves = new ArrayList<>();
+        private int points;
+
+        Reference(int size, int[] values) {
+            this.size = size;
+            this.values = values.clone();
+        }
+
+        void move(Direction direction) {
+            for (int line = 0; line < size; line++) {
+                int[] cells = new int[size];
+                for (int i = 0; i < size; i++) {
+                    // i-th cell of the line, starting from the wall
+                    switch (direction) {
+                        case LEFT:  cells[i] = i + size * line; break;
+                        case RIGHT: cells[i] = size - 1 - i + size * line; break;
+                        case UP:    cells[i] = line + size * i; break;
+                        default:    cells[i] = line + size * (size - 1 - i); break;
+                    }
+                }
+                List<Integer> tiles = new ArrayList<>();
+                for (int cell : cells) {
+                    if (values[cell] != 0) {
+                        tiles.add(cell);
+                    }
+                }
+                int[] line2 = new int[size];
+                int target = 0;
+                for (int i = 0; i < tiles.size(); i++, target++) {
+                    int cell = tiles.get(i);
+                    int value = values[cell];
+                    if (cell != cells[target]) {
+                        moves.add(cell + ">" + cells[target]);
+                    }
+                    if (i + 1 < tiles.size() && values[tiles.get(i + 1)] == value) {
+                        i++;
+                        moves.add(tiles.get(i) + ">" + cells[target] + "+");
+                        value *= 2;
+                        points += value;
+                    }
+                    line2[target] = value;
+                }
+                for (int i = 0; i < size; i++) {
+                    values[cells[i]] = line2[i];
+                }
+            }
+            Collections.sort(moves);
+        }
+
+        static int countEmpty(int[] values) {
+            int empty = 0;
+            for (int value : values) {
+                if (value == 0) {
+                    empty++;
+                }
+            }
+            return empty;
+        }
+
+        static int countPairs(int size, int[] values) {
+            int pairs = 0;
+            for (int y = 0; y < size; y++) {
+                for (int x = 0; x < size; x++) {
+                    int value = values[x + size * y];
+                    if (value == 0) {
+                        continue;
+                    }
+                    if (x < size - 1 && values[x + 1 + size * y] == value) {
+                        pairs++;
+                    }
+                    if (y < size - 1 && values[x + size * (y + 1)] == value) {
+                        pairs++;
+                    }
+                }
+            }
+            return pairs;
+        }
+
+        static String toString(int[] values) {
+            StringBuilder sb = new StringBuilder();
+            for (int value : values) {
+                sb.append(value).append(' ');
+            }
+            return sb.toString().trim();
+        }
+    }
+}
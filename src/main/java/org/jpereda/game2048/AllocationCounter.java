@@ -0,0 +1,106 @@
+/*
+ * Copyright (C) 2013-2019 2048FX
+ * Jose Pereda, Bruno Borges & Jens Deters
+ * All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.jpereda.game2048;
+
+import java.lang.management.ManagementFactory;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Debug counter of the bytes allocated by a thread between {@link #start()}
+ * and {@link #stop()}.
+ *
+ * It is enabled with -Dgame2048.debug.allocation=true, only on JVMs that
+ * provide com.sun.management.ThreadMXBean. The management API is not
+ * available on mobile, so it is only loaded when the counter is enabled.
+ *
+ * @author jpereda
+ */
+final class AllocationCounter {
+
+    private static final Logger LOG = Logger.getLogger(AllocationCounter.class.getName());
+    private static final boolean ENABLED = Boolean.getBoolean("game2048.debug.allocation");
+
+    private final ThreadProbe probe;
+    private long start;
+    // nested start/stop pairs are counted by the outermost one
+    private int depth;
+    private long total;
+    private long count;
+
+    private AllocationCounter(ThreadProbe probe) {
+        this.probe = probe;
+    }
+
+    /**
+     * @return a new counter for the current thread, or null if it is not enabled
+     * or not supported
+     */
+    static AllocationCounter create() {
+        if (!ENABLED) {
+            return null;
+        }
+        try {
+            return new AllocationCounter(new ThreadProbe());
+        } catch (LinkageError | RuntimeException e) {
+            LOG.log(Level.WARNING, "Allocation counter not supported", e);
+            return null;
+        }
+    }
+
+    void start() {
+        if (depth++ == 0) {
+            start = probe.allocatedBytes();
+        }
+    }
+
+    /**
+     * @return the bytes allocated since the outermost call to {@link #start()},
+     * or -1 if this call closes a nested one
+     */
+    long stop() {
+        if (--depth > 0) {
+            return -1;
+        }
+        long bytes = probe.allocatedBytes() - start;
+        total += bytes;
+        count++;
+        return bytes;
+    }
+
+    long getTotal() {
+        return total;
+    }
+
+    long getCount() {
+        return count;
+    }
+
+    private static final class ThreadProbe {
+
+        private final com.sun.management.ThreadMXBean bean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        private final long threadId = Thread.currentThread().getId();
+
+        long allocatedBytes() {
+            return bean.getThreadAllocatedBytes(threadId);
+        }
+    }
+}
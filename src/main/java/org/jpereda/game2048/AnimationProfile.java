@@ -0,0 +1,57 @@
+/*
+ * Copyright (C) 2013-2019 2048FX
+ * Jose Pereda, Bruno Borges & Jens Deters
+ * All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpereda.game2048;
+
+/**
+ * Speed of the animations of the tiles
+ *
+ * @author jpereda
+ */
+public enum AnimationProfile {
+
+    NORMAL("Normal", 1),
+    FAST("Fast", 0.5),
+    /**
+     * tiles jump to their final location, without creating any animation
+     */
+    OFF("Off", 0);
+
+    private final String text;
+    private final double timeFactor;
+
+    AnimationProfile(String text, double timeFactor) {
+        this.text = text;
+        this.timeFactor = timeFactor;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    /**
+     * @return factor applied to the duration of all the animations
+     */
+    public double getTimeFactor() {
+        return timeFactor;
+    }
+
+    public boolean isAnimated() {
+        return timeFactor > 0;
+    }
+}
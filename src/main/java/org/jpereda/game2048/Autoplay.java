@@ -0,0 +1,240 @@
+/*
+ * Copyright (C) 2013-2019 2048FX
+ * Jose Pereda, Bruno Borges & Jens Deters
+ * All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpereda.game2048;
+
+import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
+import javafx.beans.property.BooleanProperty;
+import javafx.beans.property.ObjectProperty;
+import javafx.beans.property.ReadOnlyBooleanProperty;
+import javafx.beans.property.SimpleBooleanProperty;
+import javafx.beans.property.SimpleObjectProperty;
+import org.jpereda.game2048.engine.GameRandom;
+import org.jpereda.game2048.sim.Strategy;
+
+/**
+ * Plays the game with a strategy, on the pulses of the FX thread.
+ *
+ * At {@link Speed#NORMAL} speed every movement is animated, and the next one
+ * starts when the tiles stop. At higher speeds, movements are played on the
+ * engine only, without creating tiles nor animations, and the tiles are
+ * rebuilt every few movements. The strategy runs for a limited time on each
+ * pulse, so the FX thread keeps rendering.
+ *
+ * @author jpereda
+ */
+public class Autoplay {
+
+    public enum Speed {
+        /**
+         * animated movements
+         */
+        NORMAL(true, 1),
+        /**
+         * no animation, tiles repainted after every movement
+         */
+        FAST(false, 1),
+        /**
+         * no animation, tiles repainted every 10 movements
+         */
+        TURBO(false, 10),
+        /**
+         * no animation, tiles repainted every 100 movements
+         */
+        MAX(false, 100);
+
+        private final boolean animated;
+        private final int movesPerRepaint;
+
+        Speed(boolean animated, int movesPerRepaint) {
+            this.animated = animated;
+            this.movesPerRepaint = movesPerRepaint;
+        }
+
+        public boolean isAnimated() {
+            return animated;
+        }
+
+        public int getMovesPerRepaint() {
+            return movesPerRepaint;
+        }
+    }
+
+    // time per pulse for the strategy, so the pulse fits in a 60 fps frame
+    private static final long PULSE_BUDGET_NANOS = 8_000_000L;
+
+    private final GameManager gameManager;
+    private final GameRandom random = new GameRandom(GameRandom.newSeed());
+    private final BooleanProperty running = new SimpleBooleanProperty();
+    private final ObjectProperty<Speed> speed = new SimpleObjectProperty<>(Speed.NORMAL);
+    private Strategy strategy;
+    private boolean restartOnGameOver;
+    private int movesSinceRepaint;
+
+    private final AnimationTimer timer = new AnimationTimer() {
+        @Override
+        public void handle(long now) {
+            step();
+        }
+    };
+
+    /**
+     * @param gameManager the game to play
+     * @param strategy that chooses the movements, used only on the FX thread
+     */
+    public Autoplay(GameManager gameManager, Strategy strategy) {
+        this.gameManager = gameManager;
+        this.strategy = strategy;
+        gameManager.gameWonProperty().addListener((obs, ov, nv) -> {
+            if (nv && isRunning()) {
+                // dismiss the overlay once it is shown
+                Platform.runLater(gameManager::keepGoing);
+            }
+        });
+    }
+
+    public void start() {
+        if (!isRunning()) {
+            movesSinceRepaint = 0;
+            running.set(true);
+            timer.start();
+        }
+    }
+
+    public void stop() {
+        if (isRunning()) {
+            timer.stop();
+            running.set(false);
+            gameManager.redrawTiles();
+        }
+    }
+
+    public void toggle() {
+        if (isRunning()) {
+            stop();
+        } else {
+            start();
+        }
+    }
+
+    public ReadOnlyBooleanProperty runningProperty() {
+        return running;
+    }
+
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    public ObjectProperty<Speed> speedProperty() {
+        return speed;
+    }
+
+    public Speed getSpeed() {
+        return speed.get();
+    }
+
+    public void setSpeed(Speed speed) {
+        this.speed.set(speed);
+    }
+
+    public Strategy getStrategy() {
+        return strategy;
+    }
+
+    public void setStrategy(Strategy strategy) {
+        this.strategy = strategy;
+    }
+
+    /**
+     * @param restartOnGameOver true to start a new game when the game is
+     * over, for unattended demos
+     */
+    public void setRestartOnGameOver(boolean restartOnGameOver) {
+        this.restartOnGameOver = restartOnGameOver;
+    }
+
+    private void step() {
+        if (gameManager.isGameOverAndShare()) {
+            gameManager.redrawTiles();
+            if (restartOnGameOver) {
+                gameManager.tryAgain(false);
+            } else {
+                stop();
+            }
+            return;
+        }
+        if (gameManager.overlayVisible().get()) {
+            // paused, or waiting for the won overlay to be dismissed
+            return;
+        }
+
+        if (!gameManager.canUseBitBoard()) {
+            // the grid doesn't fit in a bitboard anymore
+            stop();
+            return;
+        }
+
+        Speed current = getSpeed();
+        if (current.isAnimated()) {
+            gameManager.redrawTiles();
+            if (!gameManager.isMoving()) {
+                Direction direction = nextDirection();
+                if (direction != null) {
+                    gameManager.move(direction);
+                }
+            }
+            return;
+        }
+
+        if (gameManager.isMoving()) {
+            // an animated movement, from the player or from autoplay before
+            // the speed changed: the next pulse plays once it ends
+            return;
+        }
+
+        long deadline = System.nanoTime() + PULSE_BUDGET_NANOS;
+        while (movesSinceRepaint < current.getMovesPerRepaint() && System.nanoTime() < deadline
+                && !gameManager.overlayVisible().get()) {
+            Direction direction = nextDirection();
+            if (direction == null || !gameManager.moveWithoutAnimation(direction)) {
+                movesSinceRepaint = current.getMovesPerRepaint();
+                break;
+            }
+            movesSinceRepaint++;
+        }
+        if (movesSinceRepaint >= current.getMovesPerRepaint()) {
+            movesSinceRepaint = 0;
+            gameManager.redrawTiles();
+        }
+    }
+
+    /**
+     * @return the movement chosen by the strategy, or null if there is none,
+     * or the grid can't be read now
+     */
+    private Direction nextDirection() {
+        Long board = gameManager.getBitBoard();
+        if (board == null) {
+            // tiles moving, or the grid has just left the bitboard
+            return null;
+        }
+        // null when the game is over, until the game over overlay is shown
+        return strategy.choose(board, random);
+    }
+}
@@ -20,9 +20,12 @@
 package org.jpereda.game2048;
 
 import javafx.animation.Animation;
+import javafx.animation.Interpolator;
 import javafx.animation.KeyFrame;
 import javafx.animation.KeyValue;
 import javafx.animation.Timeline;
+import javafx.application.Platform;
+import javafx.beans.InvalidationListener;
 import javafx.beans.property.BooleanProperty;
 import javafx.beans.property.IntegerProperty;
 import javafx.beans.property.SimpleBooleanProperty;
@@ -44,10 +47,15 @@ import javafx.scene.layout.VBox;
 import javafx.scene.paint.Color;
 import javafx.scene.shape.Rectangle;
 import javafx.util.Duration;
+import org.jpereda.game2048.engine.GameRandom;
 
 import java.time.LocalTime;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
 import java.util.ListIterator;
 import java.util.Map;
 
@@ -65,6 +73,7 @@ public class Board extends Region {
     private final IntegerProperty gameBest = new SimpleIntegerProperty(0);
     private final IntegerProperty gameMovePoints = new SimpleIntegerProperty(0);
     private final IntegerProperty gameID = new SimpleIntegerProperty(0);
+    private final IntegerProperty mergeablePairs = new SimpleIntegerProperty(0);
     private final BooleanProperty gameWon = new SimpleBooleanProperty(false);
     private final BooleanProperty gameOverAndShare = new SimpleBooleanProperty(false);
     private final BooleanProperty gameOver = new SimpleBooleanProperty(false);
@@ -88,6 +97,10 @@ public class Board extends Region {
     // User Interface controls
     private final VBox vGame = new VBox(0);
     private final Group gridGroup = new Group();
+    // static background of the grid, the first child of gridGroup
+    private final Group cellGroup = new Group();
+    private boolean softwareRendering;
+    private Timeline pointsTimeline;
 
     private final HBox hTop = new HBox(0);
     private final VBox vScore = new VBox(-5);
@@ -109,16 +122,31 @@ public class Board extends Region {
     private final Button bShare = new Button("Share");
 
     private final Label lblMode = new Label();
+    private final Label lblMerges = new Label();
     private final Label lblTime = new Label();
     private Timeline timerPause;
 
     private final int gridWidth;
     private final GridOperator gridOperator;
+
+    // tiles removed from the board, ready to be reused: enough for a full
+    // grid and the tiles merged in a movement
+    private final int tilePoolCapacity;
+    private final Deque<Tile> tilePool;
+    // reused to remove the views of the merged tiles at once
+    private final List<Node> removedViews = new ArrayList<>();
+
+    private TileRendering tileRendering = TileRendering.LABEL;
+    private final TileImages tileImages = new TileImages(gridGroup);
+    private boolean tileImagesPending;
     private final SessionManager sessionManager;
 
     public Board(GridOperator grid) {
 
         this.gridOperator = grid;
+        int cells = gridOperator.getGridSize() * gridOperator.getGridSize();
+        tilePoolCapacity = cells + cells / 2;
+        tilePool = new ArrayDeque<>(tilePoolCapacity);
         gridWidth = CELL_SIZE * grid.getGridSize() + BORDER_WIDTH * 2;
         sessionManager = new SessionManager(gridOperator.getGridSize());
 
@@ -126,6 +154,115 @@ public class Board extends Region {
         createGrid();
 
         initGameProperties();
+        initTileImages();
+    }
+
+    /**
+     * Builds the images of the tiles again when the theme or the scale of
+     * the board change
+     */
+    private void initTileImages() {
+        InvalidationListener themeListener = o -> invalidateTileImages();
+        sceneProperty().addListener((obs, oldScene, newScene) -> {
+            if (oldScene != null) {
+                oldScene.getStylesheets().removeListener(themeListener);
+                oldScene.getRoot().getStyleClass().removeListener(themeListener);
+            }
+            if (newScene != null) {
+                newScene.getStylesheets().addListener(themeListener);
+                newScene.getRoot().getStyleClass().addListener(themeListener);
+            }
+            invalidateTileImages();
+        });
+        gridGroup.localToSceneTransformProperty().addListener((obs, t, t1) -> {
+            if (t1.getMxx() != tileImages.getScale()) {
+                invalidateTileImages();
+            }
+        });
+    }
+
+    /**
+     * Drops the images of the tiles, and renders the tiles again on the next
+     * pulse, once the styles are applied
+     */
+    private void invalidateTileImages() {
+        if (tileImagesPending) {
+            return;
+        }
+        tileImagesPending = true;
+        Platform.runLater(() -> {
+            tileImagesPending = false;
+            tileImages.setScale(gridGroup.getLocalToSceneTransform().getMxx());
+            tileImages.invalidate();
+            if (tileRendering == TileRendering.IMAGE) {
+                renderTiles();
+            }
+        });
+    }
+
+    public boolean isSoftwareRendering() {
+        return softwareRendering;
+    }
+
+    /**
+     * Renders the board for the software pipeline of Prism: the background of
+     * the grid is cached as one image, and the effects of the tiles and the
+     * fade out of the points are dropped
+     * @param softwareRendering true to render the board with the CPU
+     */
+    public void setSoftwareRendering(boolean softwareRendering) {
+        if (this.softwareRendering == softwareRendering) {
+            return;
+        }
+        this.softwareRendering = softwareRendering;
+        cellGroup.setCache(softwareRendering);
+        if (pointsTimeline != null) {
+            pointsTimeline.stop();
+            pointsTimeline = null;
+        }
+        if (softwareRendering) {
+            getStyleClass().add("game-software");
+        } else {
+            getStyleClass().remove("game-software");
+            for (Node node : gridGroup.getChildren()) {
+                if (Tile.of(node) != null) {
+                    node.setCache(false);
+                }
+            }
+        }
+        // the images of the tiles have no effects
+        invalidateTileImages();
+    }
+
+    public TileRendering getTileRendering() {
+        return tileRendering;
+    }
+
+    /**
+     * Renders all the tiles on the board, and the new ones, as labels or as
+     * images
+     * @param tileRendering how the tiles are rendered
+     */
+    public void setTileRendering(TileRendering tileRendering) {
+        if (this.tileRendering != tileRendering) {
+            this.tileRendering = tileRendering;
+            renderTiles();
+        }
+    }
+
+    private void renderTiles() {
+        TileImages images = getTileImages();
+        // a tile may replace its view in the list
+        for (int i = 0; i < gridGroup.getChildren().size(); i++) {
+            Tile tile = Tile.of(gridGroup.getChildren().get(i));
+            if (tile != null) {
+                tile.render(images);
+            }
+        }
+    }
+
+    private TileImages getTileImages() {
+        return tileRendering == TileRendering.IMAGE ? tileImages : null;
     }
 
     private void createScore() {
@@ -176,13 +313,20 @@ public class Board extends Region {
 
         lblTime.getStyleClass().addAll("game-label", "game-time");
         lblTime.textProperty().bind(clock);
+        lblMerges.getStyleClass().addAll("game-label", "game-time");
+        mergeablePairs.addListener(o -> {
+            int pairs = mergeablePairs.get();
+            lblMerges.setText(pairs == 1 ? "1 merge" : pairs + " merges");
+        });
         HBox hGap = new HBox();
         HBox.setHgrow(hGap, Priority.ALWAYS);
+        HBox hGap2 = new HBox();
+        HBox.setHgrow(hGap2, Priority.ALWAYS);
         timer = new Timeline(new KeyFrame(Duration.ZERO, e -> {
             clock.set(LocalTime.now().minusNanos(time.toNanoOfDay()).format(fmt));
         }), new KeyFrame(Duration.seconds(1)));
         timer.setCycleCount(Animation.INDEFINITE);
-        hTime.getChildren().addAll(lblMode, hGap, lblTime);
+        hTime.getChildren().addAll(lblMode, hGap, lblMerges, hGap2, lblTime);
 
         vGame.getChildren().add(hTime);
         getChildren().add(vGame);
@@ -209,9 +353,10 @@ public class Board extends Region {
 
         for (int i = 0; i < gridOperator.getGridSize(); i++) {
             for (int j = 0; j < gridOperator.getGridSize(); j++) {
-                gridGroup.getChildren().add(createCell(i, j));
+                cellGroup.getChildren().add(createCell(i, j));
             }
         }
+        gridGroup.getChildren().add(cellGroup);
 
         gridGroup.getStyleClass().add("game-grid");
         gridGroup.setManaged(false);
@@ -425,11 +570,7 @@ public class Board extends Region {
 
     private void doClearGame() {
         saveRecord();
-        for (ListIterator<Node> iterator = gridGroup.getChildren().listIterator(); iterator.hasNext();) {
-            if (iterator.next() instanceof Tile) {
-                iterator.remove();
-            }
-        }
+        removeAllTiles();
         getChildren().removeAll(overlay, buttonsOverlay);
 
         clearGame.set(false);
@@ -461,52 +602,111 @@ public class Board extends Region {
             return;
         }
 
-        final Timeline timeline = new Timeline();
         lblPoints.setText("+" + gameMovePoints.getValue().toString());
         lblPoints.setOpacity(1);
         double posX = vScore.localToScene(vScore.getWidth() / 2d, 0).getX();
         lblPoints.setTranslateX(0);
         lblPoints.setTranslateX(lblPoints.sceneToLocal(posX, 0).getX() - lblPoints.getWidth() / 2d);
         lblPoints.setLayoutY(20);
-        final KeyValue kvO = new KeyValue(lblPoints.opacityProperty(), 0);
-        final KeyValue kvY = new KeyValue(lblPoints.layoutYProperty(), 100);
 
-        Duration animationDuration = Duration.millis(600);
-        final KeyFrame kfO = new KeyFrame(animationDuration, kvO);
-        final KeyFrame kfY = new KeyFrame(animationDuration, kvY);
+        if (pointsTimeline == null) {
+            // the same animation is played after every movement
+            // blending the translucent label is too expensive without a GPU
+            final KeyValue kvO = new KeyValue(lblPoints.opacityProperty(), 0,
+                    softwareRendering ? Interpolator.DISCRETE : Interpolator.LINEAR);
+            final KeyValue kvY = new KeyValue(lblPoints.layoutYProperty(), 100);
 
-        timeline.getKeyFrames().add(kfO);
-        timeline.getKeyFrames().add(kfY);
+            Duration animationDuration = Duration.millis(600);
+            final KeyFrame kfO = new KeyFrame(animationDuration, kvO);
+            final KeyFrame kfY = new KeyFrame(animationDuration, kvY);
 
-        timeline.play();
+            pointsTimeline = new Timeline(kfO, kfY);
+        }
+        pointsTimeline.playFromStart();
     }
 
     public void addTile(Tile tile) {
-        double layoutX = tile.getLocation().getLayoutX(CELL_SIZE) - (tile.getMinWidth() / 2);
-        double layoutY = tile.getLocation().getLayoutY(CELL_SIZE) - (tile.getMinHeight() / 2);
+        tile.render(getTileImages());
+        double layoutX = tile.getLocation().getLayoutX(CELL_SIZE) - (Tile.SIZE / 2);
+        double layoutY = tile.getLocation().getLayoutY(CELL_SIZE) - (Tile.SIZE / 2);
 
         tile.setLayoutX(layoutX);
         tile.setLayoutY(layoutY);
-        gridGroup.getChildren().add(tile);
+        gridGroup.getChildren().add(tile.getView());
     }
 
-    public Tile addRandomTile(Location randomLocation) {
-        Tile tile = Tile.newRandomTile();
+    public Tile addRandomTile(Location randomLocation, GameRandom random) {
+        Tile tile = obtainTile(random.nextTileValue());
         tile.setLocation(randomLocation);
+        tile.render(getTileImages());
 
-        double layoutX = tile.getLocation().getLayoutX(CELL_SIZE) - (tile.getMinWidth() / 2);
-        double layoutY = tile.getLocation().getLayoutY(CELL_SIZE) - (tile.getMinHeight() / 2);
+        double layoutX = tile.getLocation().getLayoutX(CELL_SIZE) - (Tile.SIZE / 2);
+        double layoutY = tile.getLocation().getLayoutY(CELL_SIZE) - (Tile.SIZE / 2);
 
         tile.setLayoutX(layoutX);
         tile.setLayoutY(layoutY);
         tile.setScaleX(0.1);
         tile.setScaleY(0.1);
 
-        gridGroup.getChildren().add(tile);
+        gridGroup.getChildren().add(tile.getView());
+
+        return tile;
+    }
 
+    /**
+     * Gets a tile that is not on the board yet, reusing one from the pool of
+     * removed tiles if there is any
+     * @param value of the tile
+     * @return a tile with the given value and no location
+     */
+    public Tile obtainTile(int value) {
+        Tile tile = tilePool.poll();
+        if (tile == null) {
+            return Tile.newTile(value);
+        }
+        tile.reset(value);
         return tile;
     }
 
+    /**
+     * Removes the tiles from the board, and keeps them in the pool for reuse
+     * @param tiles to be removed
+     */
+    public void removeTiles(List<Tile> tiles) {
+        if (tiles.isEmpty()) {
+            return;
+        }
+        removedViews.clear();
+        for (int i = 0; i < tiles.size(); i++) {
+            removedViews.add(tiles.get(i).getView());
+        }
+        gridGroup.getChildren().removeAll(removedViews);
+        removedViews.clear();
+        for (int i = 0; i < tiles.size(); i++) {
+            recycleTile(tiles.get(i));
+        }
+    }
+
+    /**
+     * Removes all the tiles from the board, and keeps them in the pool for
+     * reuse
+     */
+    public void removeAllTiles() {
+        for (ListIterator<Node> iterator = gridGroup.getChildren().listIterator(); iterator.hasNext();) {
+            Tile tile = Tile.of(iterator.next());
+            if (tile != null) {
+                iterator.remove();
+                recycleTile(tile);
+            }
+        }
+    }
+
+    private void recycleTile(Tile tile) {
+        if (tilePool.size() < tilePoolCapacity) {
+            tilePool.push(tile);
+        }
+    }
+
     public Group getGridGroup() {
         return gridGroup;
     }
@@ -603,14 +803,22 @@ public class Board extends Region {
     /*
      Once we have confirmation
      */
-    public void saveSession(Map<Location, Tile> gameGrid) {
+    public void saveSession(Map<Location, Tile> gameGrid, GameRandom random) {
         saveGame.set(false);
         sessionManager.saveSession(gameGrid, gameScore.getValue(),
                 LocalTime.now().minusNanos(time.toNanoOfDay()).toNanoOfDay(),
-                getGameID());
+                getGameID(), random);
         keepGoing();
     }
 
+    /**
+     * @return the random generator of the restored game, or null if it
+     * wasn't saved
+     */
+    public GameRandom restoreRandom() {
+        return sessionManager.restoreRandom();
+    }
+
     public boolean restoreSession() {
         if (!gameRestore.get()) {
             gameRestore.set(true);
@@ -691,5 +899,21 @@ public class Board extends Region {
     public IntegerProperty gameIDProperty() {
         return gameID;
     }
+
+    /**
+     * @param mergeablePairs number of pairs of adjacent tiles that can be
+     * merged with the next movement
+     */
+    public void setMergeablePairs(int mergeablePairs) {
+        this.mergeablePairs.set(mergeablePairs);
+    }
+
+    public int getMergeablePairs() {
+        return mergeablePairs.get();
+    }
+
+    public IntegerProperty mergeablePairsProperty() {
+        return mergeablePairs;
+    }
     
 }
@@ -56,6 +56,9 @@ public class Game2048 extends MobileApplication {
     public static final String GAME_VIBRATE_MODE_ON = "vibrate_mode_on";
     public static final String GAME_LEGACY = "game_legacy";
     public static final String GAME_ID = "game_id";
+    public static final String GAME_ANIMATION = "animation_profile";
+    public static final String GAME_TILE_RENDERING = "tile_rendering";
+    public static final String GAME_HINT_SOLVER = "hint_solver";
 
     private final BooleanProperty stop = new SimpleBooleanProperty();
     private final BooleanProperty pause = new SimpleBooleanProperty();
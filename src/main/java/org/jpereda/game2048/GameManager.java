@@ -21,28 +21,29 @@ package org.jpereda.game2048;
 
 import java.time.LocalTime;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Random;
-import java.util.Set;
-import java.util.concurrent.atomic.AtomicInteger;
-import javafx.animation.Interpolator;
-import javafx.animation.KeyFrame;
-import javafx.animation.KeyValue;
-import javafx.animation.ParallelTransition;
-import javafx.animation.ScaleTransition;
-import javafx.animation.SequentialTransition;
-import javafx.animation.Timeline;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javafx.application.ConditionalFeature;
+import javafx.application.Platform;
 import javafx.beans.property.BooleanProperty;
 import javafx.beans.property.IntegerProperty;
+import javafx.beans.property.ObjectProperty;
+import javafx.beans.property.ReadOnlyBooleanProperty;
+import javafx.beans.property.ReadOnlyBooleanWrapper;
 import javafx.beans.property.SimpleBooleanProperty;
+import javafx.beans.property.SimpleObjectProperty;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.beans.property.StringProperty;
 import javafx.scene.layout.Region;
-import javafx.util.Duration;
+import org.jpereda.game2048.engine.BitBoard;
+import org.jpereda.game2048.engine.BitBoardEngine;
+import org.jpereda.game2048.engine.GameRandom;
+import org.jpereda.game2048.engine.GridEngine;
+import org.jpereda.game2048.engine.MoveEngine;
+import org.jpereda.game2048.engine.MoveResult;
 import org.jpereda.game2048.legacy.OldRecordManager;
 import org.jpereda.game2048.legacy.OldSessionManager;
 
@@ -52,19 +53,50 @@ import org.jpereda.game2048.legacy.OldSessionManager;
  */
 public class GameManager extends Region {
 
+    private static final Logger LOG = Logger.getLogger(GameManager.class.getName());
+
     static final int FINAL_VALUE_TO_WIN = 2048;
-    private final double timeFactor=1;
+    private final ObjectProperty<AnimationProfile> animationProfile = new SimpleObjectProperty<>(AnimationProfile.NORMAL);
+    private final ObjectProperty<TileRendering> tileRendering = new SimpleObjectProperty<>(TileRendering.LABEL);
+    private final BooleanProperty softwareRendering = new SimpleBooleanProperty();
 
     private Board board;
     private GridOperator gridOperator;
     private volatile boolean movingTiles = false;
-    private final List<Location> locations = new ArrayList<>();
     private final Map<Location, Tile> gameGrid;
-    private final Set<Tile> mergedToBeRemoved = new HashSet<>();
+    // reused on every movement, so merging tiles doesn't allocate
+    private final List<Tile> mergedToBeRemoved;
+
+    private final TileAnimator animator;
+    private final Traversal.Cursor cursor = new Traversal.Cursor();
+
+    // one generator per game, so a game can be replayed from its seed
+    private GameRandom random;
+    private Long nextSeed = Long.getLong("game2048.seed");
+
+    // game rules, kept in sync with gameGrid: a bitboard for the 4x4 grid
+    // while it can hold all the tiles, else a plain grid
+    private final BitBoardEngine bitBoardEngine;
+    private final GridEngine gridEngine;
+    private MoveEngine engine;
+
+    // true after movements played without animation, until the tiles are
+    // rebuilt from the engine
+    private boolean tilesOutOfSync;
+
+    // debug only, with -Dgame2048.debug.allocation=true
+    private final AllocationCounter allocationCounter = AllocationCounter.create();
 
     // true only after every 2048 found, until the game is saved
     private final BooleanProperty tile2048Found = new SimpleBooleanProperty();
 
+    // set to true, and back to false, every time the grid changes
+    private final ReadOnlyBooleanWrapper boardChanged = new ReadOnlyBooleanWrapper();
+    // movingTiles, for listeners on the FX thread
+    private final ReadOnlyBooleanWrapper moving = new ReadOnlyBooleanWrapper();
+    // true while the grid is held in the bitboard
+    private final ReadOnlyBooleanWrapper bitBoardAvailable = new ReadOnlyBooleanWrapper();
+
     public GameManager() {
         this(GridOperator.DEFAULT_GRID_SIZE);
     }
@@ -79,8 +111,23 @@ public class GameManager extends Region {
         this.gameGrid = new HashMap<>();
 
         gridOperator = new GridOperator(gridSize);
+        mergedToBeRemoved = new ArrayList<>(gridSize * gridSize / 2);
+        bitBoardEngine = gridSize == BitBoard.SIZE ? new BitBoardEngine() : null;
+        gridEngine = new GridEngine(gridOperator);
+        engine = gridEngine;
         board = new Board(gridOperator);
+        animator = new TileAnimator(() -> finishMove(true), () -> {
+            if (checkEndGame()) {
+                board.setGameOverAndShare(true);
+            }
+        });
         this.getChildren().add(board);
+        tileRendering.addListener((obs, r, r1) -> board.setTileRendering(r1));
+        softwareRendering.addListener((obs, b, b1) -> {
+            board.setSoftwareRendering(b1);
+            animator.setCacheTiles(b1);
+        });
+        softwareRendering.set(isSoftwarePipeline());
         board.clearGameProperty().addListener((ov, b, b1) -> {
             if (b1) {
                 initializeGameGrid();
@@ -110,14 +157,12 @@ public class GameManager extends Region {
      * Initializes all cells in gameGrid map to null
      */
     private void initializeGameGrid() {
+        animator.completeAll();
+        setMovingTiles(false);
         gameGrid.clear();
-        locations.clear();
-        for (Integer x : gridOperator.getTraverseX()) {
-            for (Integer y : gridOperator.getTraverseY()) {
-                Location thisloc = new Location(x, y);
-                locations.add(thisloc);
-                gameGrid.put(thisloc, null);
-            }
+        cursor.reset(gridOperator.getTraversal());
+        while (cursor.next()) {
+            gameGrid.put(gridOperator.getLocation(cursor.getCell()), null);
         }
     }
 
@@ -126,25 +171,15 @@ public class GameManager extends Region {
      */
     private void startGame() {
         tile2048Found.set(false);
-        Tile tile0 = Tile.newRandomTile();
-        List<Location> randomLocs = new ArrayList<>(locations);
-        Random random = new Random();
-        random.setSeed(System.currentTimeMillis());
-        Collections.shuffle(randomLocs, random);
-        tile0.setLocation(randomLocs.get(0));
-
-        gameGrid.put(tile0.getLocation(), tile0);
-
-        if (new Random().nextFloat() <= 0.8) { // gives 80% chance to add a second tile
-            Tile tile1 = Tile.newRandomTile();
-            if (tile1.getValue() == 4 && tile0.getValue() == 4) {
-                tile1 = Tile.newTile(2);
-            }
-            tile1.setLocation(randomLocs.get(1));
-            gameGrid.put(tile1.getLocation(), tile1);
-        }
+        random = new GameRandom(nextSeed != null ? nextSeed : GameRandom.newSeed());
+        nextSeed = null;
+        LOG.log(Level.INFO, "New game, seed: {0}", Long.toString(random.getSeed()));
 
-        redrawTilesInGameGrid();
+        // same rule as the simulator
+        syncEngine();
+        random.startGame(engine);
+        createTilesFromEngine();
+        fireBoardChanged();
 
         board.startGame();
     }
@@ -160,6 +195,32 @@ public class GameManager extends Region {
         }
     }
 
+    /**
+     * Copies the tiles in the <code>gameGrid</code> object to the engine.
+     * The bitboard is used only while no tile reaches its maximum value,
+     * as two of those can't be merged
+     */
+    private void syncEngine() {
+        boolean useBitBoard = bitBoardEngine != null;
+        for (Tile t : gameGrid.values()) {
+            if (t != null && t.getValue() >= BitBoard.MAX_VALUE) {
+                useBitBoard = false;
+                break;
+            }
+        }
+        engine = useBitBoard ? bitBoardEngine : gridEngine;
+        bitBoardAvailable.set(useBitBoard);
+        tilesOutOfSync = false;
+
+        engine.clear();
+        for (Tile t : gameGrid.values()) {
+            if (t != null) {
+                engine.setValue(t.getLocation().getX(), t.getLocation().getY(), t.getValue());
+            }
+        }
+        board.setMergeablePairs(engine.getMergeablePairs());
+    }
+
     private int tilesWereMoved = 0;
     private void moveTiles(Direction direction) {
         synchronized (gameGrid) {
@@ -168,140 +229,220 @@ public class GameManager extends Region {
             }
         }
 
-        ParallelTransition parallelTransition = new ParallelTransition();
+        redrawTiles();
+
+        startAllocationCounter();
+        try {
+            doMoveTiles(direction);
+        } finally {
+            stopAllocationCounter();
+        }
+    }
+
+    private void doMoveTiles(Direction direction) {
         board.setPoints(0);
-        tilesWereMoved = 0;
         mergedToBeRemoved.clear();
-        gridOperator.sortGrid(direction);
-        for(Integer x: gridOperator.getTraverseX()){
-            for(Integer y:gridOperator.getTraverseY()){
-                Location thisloc = new Location(x, y);
-                Location farthestLocation = findFarthestLocation(thisloc, direction); // farthest available location
-                Tile tile = gameGrid.get(thisloc);
-                AtomicInteger result=new AtomicInteger();
-                Location nextLocation = farthestLocation.offset(direction); // calculates to a possible merge
-                if(nextLocation!=null && gameGrid.get(nextLocation)!=null){
-                    Tile t = gameGrid.get(nextLocation);
-                    if (t.isMergeable(tile) && !t.isMerged()) {
-                        t.merge(tile);
-                        t.toFront();
-                        gameGrid.put(nextLocation, t);
-                        gameGrid.put(thisloc, null);
-
-                        parallelTransition.getChildren().add(animateExistingTile(tile, t.getLocation()));
-                        parallelTransition.getChildren().add(animateMergedTile(t));
-                        mergedToBeRemoved.add(tile);
-
-                        board.addPoints(t.getValue());
-
-                        if (t.getValue() == FINAL_VALUE_TO_WIN) {
-                            tile2048Found.set(false);
-                            board.setGameWin(true);
-                            tile2048Found.set(true);
-                        }
-                        result.set(1);
-                    }
-                }
-                if (result.get() == 0 && tile != null && !farthestLocation.equals(thisloc)) {
-                    parallelTransition.getChildren().add(animateExistingTile(tile, farthestLocation));
 
-                    gameGrid.put(farthestLocation, tile);
-                    gameGrid.put(thisloc, null);
+        MoveResult result = engine.move(direction);
+        if (result.isMoved()) {
+            fireBoardChanged();
+        }
 
-                    tile.setLocation(farthestLocation);
+        boolean animated = getAnimationProfile().isAnimated();
+        tilesWereMoved = applyMoveResult(result, animated);
+        if (engine == bitBoardEngine && BitBoard.getMaxExponent(result.getBoard()) == BitBoard.MAX_EXPONENT) {
+            // from now on, moves are done on the grid
+            syncEngine();
+        }
+        board.setMergeablePairs(engine.getMergeablePairs());
 
-                    result.set(1);
-                }
-                tilesWereMoved+=result.get();
+        if (!animated) {
+            // tiles are already at their final location
+            if (tilesWereMoved > 0) {
+                finishMove(false);
             }
+            return;
         }
 
         board.animateScore();
 
-        if(parallelTransition.getChildren().size()>0){
+        if (tilesWereMoved > 0) {
+            setMovingTiles(true);
+            animator.play();
+        }
+    }
 
-            parallelTransition.setOnFinished(e -> {
-                board.getGridGroup().getChildren().removeAll(mergedToBeRemoved);
+    /**
+     * Completes the animation of the last movement, if it is still running:
+     * all the tiles jump to their final layout, and the new tile is added
+     */
+    private void fastForward() {
+        if (!animator.isMoving()) {
+            return;
+        }
+        animator.completeMovement();
+        finishMove(true);
+    }
 
-                // reset merged after each movement
-                for (Tile t : gameGrid.values()) {
-                    if (t != null) {
-                        t.clearMerge();
-                    }
-                }
+    /**
+     * Removes the merged tiles once they reach their target, and adds a new
+     * random tile
+     * @param animated true to animate the new tile
+     */
+    private void finishMove(boolean animated) {
+        startAllocationCounter();
+        try {
+            doFinishMove(animated);
+        } finally {
+            stopAllocationCounter();
+        }
+    }
+
+    private void doFinishMove(boolean animated) {
+        for (int i = 0; i < mergedToBeRemoved.size(); i++) {
+            // a new tile may still be growing when it is merged
+            animator.cancel(mergedToBeRemoved.get(i));
+        }
+        board.removeTiles(mergedToBeRemoved);
+
+        // reset merged after each movement
+        cursor.reset(gridOperator.getTraversal());
+        while (cursor.next()) {
+            Tile t = gameGrid.get(gridOperator.getLocation(cursor.getCell()));
+            if (t != null) {
+                t.clearMerge();
+            }
+        }
 
-                Location randomAvailableLocation = findRandomAvailableLocation();
-                if (randomAvailableLocation == null && mergeMovementsAvailable() == 0 ) {
-                    // game is over if there are no more moves available
+        Location randomAvailableLocation = findRandomAvailableLocation();
+        if (randomAvailableLocation == null && mergeMovementsAvailable() == 0 ) {
+            // game is over if there are no more moves available
+            board.setGameOverAndShare(true);
+        } else if (randomAvailableLocation != null && tilesWereMoved > 0) {
+            Tile tile = addRandomTile(randomAvailableLocation);
+            // the grid is complete, with the new tile
+            setMovingTiles(false);
+            if (!animated) {
+                tile.setScaleX(1);
+                tile.setScaleY(1);
+                if (checkEndGame()) {
                     board.setGameOverAndShare(true);
-                } else if (randomAvailableLocation != null && tilesWereMoved > 0) {
-                    synchronized (gameGrid) {
-                        movingTiles = false;
-                    }
-                    ScaleTransition scaleTransition=addAndAnimateRandomTile(randomAvailableLocation);
-                    scaleTransition.setOnFinished(t -> {
-                        if(checkEndGame()) {
-                            board.setGameOverAndShare(true);
-                        }
-                    });
-                    scaleTransition.play();
                 }
-            });
-
-            synchronized (gameGrid) {
-                movingTiles = true;
+                return;
             }
-            parallelTransition.play();
+            animateNewlyAddedTile(tile);
+            animator.play();
         }
     }
 
     /**
-     * Searchs for the farthest empty location where the current tile could go
-     * @param location of the tile
-     * @param direction of movement
-     * @return a location
+     * Applies the result of a movement to the tiles in the grid, adding the
+     * required animations
+     * @param result of the movement, computed by the engine
+     * @param animated true to animate the tiles, false to move them straight
+     * to their new location
+     * @return the number of tiles moved or merged
      */
-    private Location findFarthestLocation(Location location, Direction direction) {
-        Location farthest;
+    private int applyMoveResult(MoveResult result, boolean animated) {
+        for (int i = 0; i < result.size(); i++) {
+            Location from = gridOperator.getLocation(result.getFrom(i));
+            Location to = gridOperator.getLocation(result.getTo(i));
+            Tile tile = gameGrid.get(from);
+            if (result.isMerged(i)) {
+                Tile t = gameGrid.get(to);
+                t.merge(tile);
+                t.toFront();
+                gameGrid.put(from, null);
+
+                if (animated) {
+                    animateExistingTile(tile, to);
+                    animateMergedTile(t);
+                }
+                mergedToBeRemoved.add(tile);
+
+                board.addPoints(t.getValue());
 
-        do {
-            farthest = location;
-            location = farthest.offset(direction);
-        } while (gridOperator.isValidLocation(location) && gameGrid.get(location)==null);
+                if (t.getValue() == FINAL_VALUE_TO_WIN) {
+                    tile2048Found.set(false);
+                    board.setGameWin(true);
+                    tile2048Found.set(true);
+                }
+            } else {
+                if (animated) {
+                    animateExistingTile(tile, to);
+                } else {
+                    relocate(tile, to);
+                }
 
-        return farthest;
+                gameGrid.put(to, tile);
+                gameGrid.put(from, null);
+
+                tile.setLocation(to);
+            }
+        }
+        return result.size();
     }
 
     /**
-     * Finds the number of pairs of tiles that can be merged
+     * Plays a movement, and adds the new tile, on the engine only: no tile
+     * nor animation is created, and the board shows the previous tiles
+     * until {@link #redrawTiles()} is called
+     * @param direction of the movement
+     * @return true if the movement changed the grid
+     */
+    private boolean moveTilesOnEngine(Direction direction) {
+        MoveResult result = engine.move(direction);
+        if (!result.isMoved()) {
+            return false;
+        }
+        fireBoardChanged();
+        for (int i = 0; i < result.size(); i++) {
+            if (result.isMerged(i)) {
+                int value = engine.getValue(result.getToX(i), result.getToY(i));
+                board.addPoints(value);
+                if (value == FINAL_VALUE_TO_WIN) {
+                    tile2048Found.set(false);
+                    board.setGameWin(true);
+                    tile2048Found.set(true);
+                }
+            }
+        }
+        if (engine == bitBoardEngine && BitBoard.getMaxExponent(result.getBoard()) == BitBoard.MAX_EXPONENT) {
+            // from now on, moves are done on the grid
+            engine = gridEngine;
+            bitBoardAvailable.set(false);
+            engine.clear();
+            for (int cell = 0; cell < BitBoard.CELLS; cell++) {
+                int value = BitBoard.toValue(BitBoard.getExponent(result.getBoard(), cell));
+                if (value > 0) {
+                    engine.setValue(cell % BitBoard.SIZE, cell / BitBoard.SIZE, value);
+                }
+            }
+        }
+        tilesOutOfSync = true;
+
+        // same draws from the generator as addRandomTile
+        int cell = random.nextCell(engine.getEmptyCells());
+        if (cell >= 0) {
+            int gridSize = gridOperator.getGridSize();
+            engine.setValue(cell % gridSize, cell / gridSize, random.nextTileValue());
+        }
+        if (checkEndGame()) {
+            redrawTiles();
+            board.setGameOverAndShare(true);
+        }
+        return true;
+    }
+
+    /**
+     * Finds the number of pairs of tiles that can be merged.
      *
-     * This method is called only when the grid is full of tiles,
-     * what makes the use of Optional unnecessary, but it could be used when the
-     * board is not full to find the number of pairs of mergeable tiles and provide a hint
-     * for the user, for instance
+     * The engine keeps this number up to date after every change, so it
+     * doesn't scan the grid
      * @return the number of pairs of tiles that can be merged
      */
     private int mergeMovementsAvailable() {
-        final AtomicInteger pairsOfMergeableTiles = new AtomicInteger();
-        int cont=0;
-        Direction direction= Direction.UP;
-        do {
-            for(Integer x: gridOperator.getTraverseX()){
-                for(Integer y:gridOperator.getTraverseY()){
-                    Location thisloc = new Location(x, y);
-                    Tile tile = gameGrid.get(thisloc);
-                    if(tile!=null){
-                        Tile offsetTile = gameGrid.get(thisloc.offset(direction));
-                        if(offsetTile!=null && tile.isMergeable(offsetTile)){
-                            pairsOfMergeableTiles.incrementAndGet();
-                        }
-                    }
-                }
-            }
-            direction = Direction.LEFT;
-            cont++;
-        } while(cont<2);
-        return pairsOfMergeableTiles.get();
+        return engine.getMergeablePairs();
     }
 
     /**
@@ -311,105 +452,67 @@ public class GameManager extends Region {
      * locations available
      */
     private Location findRandomAvailableLocation() {
-        List<Location> availableLocations = new ArrayList<>();
-        for(Integer x: gridOperator.getTraverseX()){
-            for(Integer y:gridOperator.getTraverseY()){
-                Location thisloc = new Location(x, y);
-                if(gameGrid.get(thisloc)==null){
-                    availableLocations.add(thisloc);
-                }
-
-            }
-        }
-
-        if (availableLocations.isEmpty()) {
-            return null;
-        }
-
-        Random random = new Random();
-        random.setSeed(System.currentTimeMillis());
-        Collections.shuffle(availableLocations, random);
-        Location randomLocation = availableLocations.get(random.nextInt(availableLocations.size()));
-        return randomLocation;
+        int cell = random.nextCell(engine.getEmptyCells());
+        return cell < 0 ? null : gridOperator.getLocation(cell);
     }
 
     /**
-     * Adds a tile of random value to a random location with a proper animation
+     * Adds a tile of random value to a random location, scaled down to be
+     * animated
      *
      * @param randomLocation
+     * @return the new tile
      */
-    private ScaleTransition addAndAnimateRandomTile(Location randomLocation) {
-        Tile tile = board.addRandomTile(randomLocation);
+    private Tile addRandomTile(Location randomLocation) {
+        Tile tile = board.addRandomTile(randomLocation, random);
         gameGrid.put(tile.getLocation(), tile);
+        engine.setValue(randomLocation.getX(), randomLocation.getY(), tile.getValue());
+        board.setMergeablePairs(engine.getMergeablePairs());
+        return tile;
+    }
 
-        return animateNewlyAddedTile(tile);
+    /**
+     * Moves the tile to its new location without animation
+     * @param tile to be moved
+     * @param newLocation new location of the tile
+     */
+    private void relocate(Tile tile, Location newLocation) {
+        tile.setLayoutX(newLocation.getLayoutX(Board.CELL_SIZE) - (Tile.SIZE / 2));
+        tile.setLayoutY(newLocation.getLayoutY(Board.CELL_SIZE) - (Tile.SIZE / 2));
     }
 
     /**
      * Animation that creates a fade in effect when a tile is added to the game
      * by increasing the tile scale from 0 to 100%
      * @param tile to be animated
-     * @return a scale transition
      */
-    private ScaleTransition animateNewlyAddedTile(Tile tile) {
-        final ScaleTransition scaleTransition = new ScaleTransition(Duration.millis(125*timeFactor), tile);
-        scaleTransition.setToX(1.0);
-        scaleTransition.setToY(1.0);
-        scaleTransition.setInterpolator(Interpolator.EASE_OUT);
-        return scaleTransition;
+    private void animateNewlyAddedTile(Tile tile) {
+        animator.spawn(tile, 125*getAnimationProfile().getTimeFactor());
     }
 
     /**
      * Animation that moves the tile from its previous location to a new location
      * @param tile to be animated
      * @param newLocation new location of the tile
-     * @return a timeline
      */
-    private Timeline animateExistingTile(Tile tile, Location newLocation) {
-        Timeline timeline = new Timeline();
-        KeyValue kvX = new KeyValue(tile.layoutXProperty(),
-                newLocation.getLayoutX(Board.CELL_SIZE) - (tile.getMinHeight() / 2), Interpolator.EASE_OUT);
-        KeyValue kvY = new KeyValue(tile.layoutYProperty(),
-                newLocation.getLayoutY(Board.CELL_SIZE) - (tile.getMinHeight() / 2), Interpolator.EASE_OUT);
-
-        KeyFrame kfX = new KeyFrame(Duration.millis(65*timeFactor), kvX);
-        KeyFrame kfY = new KeyFrame(Duration.millis(65*timeFactor), kvY);
-
-        timeline.getKeyFrames().add(kfX);
-        timeline.getKeyFrames().add(kfY);
-
-        return timeline;
+    private void animateExistingTile(Tile tile, Location newLocation) {
+        animator.move(tile,
+                newLocation.getLayoutX(Board.CELL_SIZE) - (Tile.SIZE / 2),
+                newLocation.getLayoutY(Board.CELL_SIZE) - (Tile.SIZE / 2),
+                65*getAnimationProfile().getTimeFactor());
     }
 
     /**
      * Animation that creates a pop effect when two tiles merge
      * by increasing the tile scale to 120% at the middle, and then going back to 100%
      * @param tile to be animated
-     * @return a sequential transition
      */
-    private SequentialTransition animateMergedTile(Tile tile) {
-        final ScaleTransition scale0 = new ScaleTransition(Duration.millis(80*timeFactor), tile);
-        scale0.setToX(1.2);
-        scale0.setToY(1.2);
-        scale0.setInterpolator(Interpolator.EASE_IN);
-
-        final ScaleTransition scale1 = new ScaleTransition(Duration.millis(80*timeFactor), tile);
-        scale1.setToX(1.0);
-        scale1.setToY(1.0);
-        scale1.setInterpolator(Interpolator.EASE_OUT);
-
-        return new SequentialTransition(scale0, scale1);
+    private void animateMergedTile(Tile tile) {
+        animator.pop(tile, 160*getAnimationProfile().getTimeFactor());
     }
 
     private boolean checkEndGame(){
-        for(Integer x: gridOperator.getTraverseX()){
-            for(Integer y:gridOperator.getTraverseY()){
-                if(gameGrid.get(new Location(y, x))==null){
-                    return false;
-                }
-            }
-        }
-        return mergeMovementsAvailable() == 0;
+        return !engine.canMove();
     }
 
     /**
@@ -430,13 +533,159 @@ public class GameManager extends Region {
     /*************************************************************************/
 
     /**
-     * Move the tiles according user input if overlay is not on
+     * Move the tiles according user input if overlay is not on.
+     *
+     * If the tiles are still moving, the animation jumps to its end, and the
+     * movement is applied at once from there, so fast input is not lost.
      * @param direction
      */
     public void move(Direction direction){
-        if (!board.isLayerOn().get()) {
-            moveTiles(direction);
+        if (board.isLayerOn().get()) {
+            return;
+        }
+        fastForward();
+        if (board.isLayerOn().get()) {
+            // the game is over, or has been won
+            return;
+        }
+        moveTiles(direction);
+    }
+
+    /**
+     * Plays a movement without animations, for autoplay at high speed. The
+     * tiles are not updated until {@link #redrawTiles()} is called, so many
+     * movements can be played between two repaints.
+     * @param direction of the movement
+     * @return true if the movement changed the grid, false if it didn't, or
+     * the grid is covered by the overlay, or tiles are moving
+     */
+    public boolean moveWithoutAnimation(Direction direction) {
+        if (board.isLayerOn().get() || isMoving()) {
+            return false;
         }
+        return moveTilesOnEngine(direction);
+    }
+
+    /**
+     * Rebuilds the tiles of the board from the engine, after movements
+     * played with {@link #moveWithoutAnimation(Direction)}
+     */
+    public void redrawTiles() {
+        if (!tilesOutOfSync) {
+            return;
+        }
+        tilesOutOfSync = false;
+        board.removeAllTiles();
+        initializeGameGrid();
+        createTilesFromEngine();
+    }
+
+    /**
+     * Adds a tile to the empty <code>gameGrid</code> and the board for every
+     * tile of the engine
+     */
+    private void createTilesFromEngine() {
+        cursor.reset(gridOperator.getTraversal());
+        while (cursor.next()) {
+            int value = engine.getValue(cursor.getX(), cursor.getY());
+            if (value > 0) {
+                Tile tile = board.obtainTile(value);
+                tile.setLocation(gridOperator.getLocation(cursor.getCell()));
+                gameGrid.put(tile.getLocation(), tile);
+            }
+        }
+        redrawTilesInGameGrid();
+        board.setMergeablePairs(engine.getMergeablePairs());
+    }
+
+    public ObjectProperty<AnimationProfile> animationProfileProperty() {
+        return animationProfile;
+    }
+
+    public AnimationProfile getAnimationProfile() {
+        return animationProfile.get();
+    }
+
+    /**
+     * @param animationProfile speed of the animations of the next movements,
+     * or {@link AnimationProfile#OFF} to move the tiles without animations
+     */
+    public void setAnimationProfile(AnimationProfile animationProfile) {
+        this.animationProfile.set(animationProfile);
+    }
+
+    public ObjectProperty<TileRendering> tileRenderingProperty() {
+        return tileRendering;
+    }
+
+    public TileRendering getTileRendering() {
+        return tileRendering.get();
+    }
+
+    /**
+     * @param tileRendering how the tiles are rendered, as labels styled with
+     * CSS or as pre-rendered images
+     */
+    public void setTileRendering(TileRendering tileRendering) {
+        this.tileRendering.set(tileRendering);
+    }
+
+    public BooleanProperty softwareRenderingProperty() {
+        return softwareRendering;
+    }
+
+    public boolean isSoftwareRendering() {
+        return softwareRendering.get();
+    }
+
+    /**
+     * @param softwareRendering true to render the board for the software
+     * pipeline of Prism, on devices without a GPU
+     */
+    public void setSoftwareRendering(boolean softwareRendering) {
+        this.softwareRendering.set(softwareRendering);
+    }
+
+    /**
+     * Finds if Prism renders with the CPU: when it is forced with
+     * -Dprism.order=sw, or when there is no GPU, and so no 3D support.
+     * It can be overridden with -Dgame2048.software=true|false
+     * @return true if the software pipeline is used
+     */
+    static boolean isSoftwarePipeline() {
+        String software = System.getProperty("game2048.software");
+        if (software != null) {
+            return Boolean.parseBoolean(software);
+        }
+        String order = System.getProperty("prism.order");
+        if (order != null && order.trim().startsWith("sw")) {
+            return true;
+        }
+        return !Platform.isSupported(ConditionalFeature.SCENE3D);
+    }
+
+    /**
+     * @return true while the tiles of the last movement are being animated
+     */
+    public boolean isMoving() {
+        synchronized (gameGrid) {
+            return movingTiles;
+        }
+    }
+
+    /**
+     * @return a property that is true while the tiles of the last movement
+     * are being animated. It is set to false once the new tile is added
+     */
+    public ReadOnlyBooleanProperty movingProperty() {
+        return moving.getReadOnlyProperty();
+    }
+
+    private void setMovingTiles(boolean movingTiles) {
+        synchronized (gameGrid) {
+            this.movingTiles = movingTiles;
+        }
+        moving.set(movingTiles);
     }
 
     /**
@@ -478,8 +727,9 @@ public class GameManager extends Region {
      * Save the game to a properties file, without confirmation
      */
     private void doSaveSession() {
+        redrawTiles();
         tile2048Found.set(false);
-        board.saveSession(gameGrid);
+        board.saveSession(gameGrid, random);
     }
 
     /**
@@ -495,7 +745,11 @@ public class GameManager extends Region {
     private void doRestoreSession() {
         initializeGameGrid();
         if (board.restoreSession(gameGrid)) {
+            GameRandom restored = board.restoreRandom();
+            random = restored != null ? restored : new GameRandom(GameRandom.newSeed());
+            syncEngine();
             redrawTilesInGameGrid();
+            fireBoardChanged();
         }
     }
 
@@ -581,6 +835,96 @@ public class GameManager extends Region {
         return board.gameIDProperty();
     }
 
+    /**
+     * Debug only, counts the bytes allocated by a movement: from the input to
+     * the start of the animation, and from its end to the new tile
+     */
+    private void startAllocationCounter() {
+        if (allocationCounter != null) {
+            allocationCounter.start();
+        }
+    }
+
+    private void stopAllocationCounter() {
+        if (allocationCounter != null) {
+            long bytes = allocationCounter.stop();
+            if (bytes >= 0) {
+                LOG.log(bytes > 0 ? Level.WARNING : Level.FINE, "Move allocated {0} bytes", bytes);
+            }
+        }
+    }
+
+    /**
+     * Debug only, enabled with -Dgame2048.debug.allocation=true
+     * @return the bytes allocated on all the movements, including the new
+     * tiles, or -1 if the counter is not enabled
+     */
+    public long getMoveAllocatedBytes() {
+        return allocationCounter != null ? allocationCounter.getTotal() : -1;
+    }
+
+    /**
+     * @return a property that is true while the grid can be held in a
+     * bitboard, even if tiles are moving: false for grids other than 4x4,
+     * and once a tile reaches the maximum value of the bitboard
+     */
+    public ReadOnlyBooleanProperty bitBoardAvailableProperty() {
+        return bitBoardAvailable.getReadOnlyProperty();
+    }
+
+    /**
+     * @return true if the game is played on the bitboard engine, so
+     * {@link #getBitBoard()} returns the grid once the tiles stop
+     */
+    public boolean canUseBitBoard() {
+        return bitBoardAvailable.get();
+    }
+
+    /**
+     * @return the current grid as a bitboard, to search hints, or null if
+     * tiles are moving, or the grid can't be held in a bitboard
+     */
+    public Long getBitBoard() {
+        synchronized (gameGrid) {
+            if (movingTiles || engine != bitBoardEngine) {
+                return null;
+            }
+            return bitBoardEngine.getBoard();
+        }
+    }
+
+    /**
+     * Signals every change of the grid: it is set to true, and back to false,
+     * when a movement starts, including those of autoplay, and when a game
+     * is started or restored. Searches of the previous grid can be cancelled
+     * from here
+     * @return a property that is true only while the change is notified
+     */
+    public ReadOnlyBooleanProperty boardChangedProperty() {
+        return boardChanged.getReadOnlyProperty();
+    }
+
+    private void fireBoardChanged() {
+        boardChanged.set(true);
+        boardChanged.set(false);
+    }
+
+    /**
+     * @return the seed of the current game
+     */
+    public long getSeed() {
+        return random.getSeed();
+    }
+
+    /**
+     * Sets the seed for the next new game. The same seed and the same list
+     * of movements always lead to the same game
+     * @param seed of the next game
+     */
+    public void setNextSeed(long seed) {
+        nextSeed = seed;
+    }
+
     public final static void legacySettings() {
         GridOperator oldGridOperator = new GridOperator();
         OldSessionManager oldSession = new OldSessionManager(oldGridOperator);
@@ -591,7 +935,8 @@ public class GameManager extends Region {
         if (oldScore > -1) {
             SessionManager session = new SessionManager(oldGridOperator.getGridSize());
             LocalTime oldLocalTime = LocalTime.now().minusNanos(new Long(oldTime.get()));
-            session.saveSession(oldGameGrid, oldScore, LocalTime.now().minusNanos(oldLocalTime.toNanoOfDay()).toNanoOfDay(), 0);
+            session.saveSession(oldGameGrid, oldScore, LocalTime.now().minusNanos(oldLocalTime.toNanoOfDay()).toNanoOfDay(), 0,
+                    new GameRandom(GameRandom.newSeed()));
 
             OldRecordManager oldRecord = new OldRecordManager(oldGridOperator.getGridSize());
             int restoreRecord = oldRecord.restoreRecord();
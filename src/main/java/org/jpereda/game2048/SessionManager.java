@@ -25,6 +25,7 @@ import javafx.beans.property.IntegerProperty;
 import javafx.beans.property.StringProperty;
 
 import java.util.Map;
+import org.jpereda.game2048.engine.GameRandom;
 
 import static org.jpereda.game2048.Game2048.GAME_ID;
 import static org.jpereda.game2048.Game2048.GAME_MODE;
@@ -46,7 +47,7 @@ public class SessionManager {
                 .orElse(0);
     }
 
-    public void saveSession(Map<Location, Tile> gameGrid, Integer score, Long time, int gameID) {
+    public void saveSession(Map<Location, Tile> gameGrid, Integer score, Long time, int gameID, GameRandom random) {
         int[] grid = new int[gridSize * gridSize];
         for (int y = 0; y < gridSize; y++) {
             for (int x = 0; x < gridSize; x++) {
@@ -55,10 +56,11 @@ public class SessionManager {
             }
         }
         Services.get(SettingsService.class).ifPresent(settings -> {
-            settings.store("Location." + gridSize + "." + gameMode, storeBoard(grid));
+            settings.store("Location." + gridSize + "." + gameMode, BoardCodec.storeBoard(grid));
             settings.store("score." + gridSize + "." + gameMode, score.toString());
             settings.store("time." + gridSize + "." + gameMode, time.toString());
             settings.store("gameID." + gridSize + "." + gameMode, Integer.toString(gameID));
+            settings.store("random." + gridSize + "." + gameMode, random.toState());
         });
     }
 
@@ -66,8 +68,14 @@ public class SessionManager {
         return Services.get(SettingsService.class)
                 .map(settings -> {
                     String stored = settings.retrieve("Location." + gridSize + "." + gameMode);
-                    if (stored != null) {
-                        int[] grid = restoreBoard(stored);
+                    if (stored != null && stored.length() == 2 * gridSize * gridSize) {
+                        int[] grid;
+                        try {
+                            grid = BoardCodec.restoreBoard(stored);
+                        } catch (IllegalArgumentException e) {
+                            // corrupted session, start a new game
+                            return -1;
+                        }
                         for (int y = 0; y < gridSize; y++) {
                             for (int x = 0; x < gridSize; x++) {
                                 int val = grid[x + gridSize * y];
@@ -99,6 +107,20 @@ public class SessionManager {
                 .orElse(-1);
     }
 
+    public GameRandom restoreRandom() {
+        return Services.get(SettingsService.class)
+                .map(settings -> settings.retrieve("random." + gridSize + "." + gameMode))
+                .filter(state -> state != null && !state.isEmpty())
+                .map(state -> {
+                    try {
+                        return GameRandom.fromState(state);
+                    } catch (IllegalArgumentException e) {
+                        return null;
+                    }
+                })
+                .orElse(null);
+    }
+
     public void saveRecord(Integer score) {
         int oldRecord = restoreRecord();
         Services.get(SettingsService.class)
@@ -119,37 +141,6 @@ public class SessionManager {
                 .orElse(0);
     }
 
-    /*
-    Converts 4x4 grid into String of 32 chars
-    Each tile is stored with a value of its power of 2:
-    0->00, 2->01, 4->02, 8->03, ... 2048->0B, .... 32768->0F, 65536->10, 131072->11, 262144->12
-    */
-    private String storeBoard(int[] grid) {
-        String board = "";
-        for (int i = grid.length-1; i >= 0; i--) {
-            int cont=0;
-            int x = grid[i] == 0 ? 1 : grid[i];
-            while (((x & 1) == 0) && x > 1) {
-                x >>= 1;
-                cont++;
-            }
-            String s = Long.toString(cont, 16);
-            board = board.concat(s.length() == 1 ? "0" : "").concat(s);
-        }
-        return board;
-    }
-
-    private static int[] restoreBoard(String stored) {
-        int[] grid = new int[16];
-        for(int i = 0; i < grid.length; i++) {
-            String s = stored.substring(stored.length() - 2, stored.length());
-            stored=stored.substring(0,stored.length() - 2);
-            int val = 1 << Long.parseLong(s, 16);
-            grid[i] = val > 1 ? val : 0;
-        }
-        return grid;
-    }
-
     public void setGameMode(int gameMode) {
         this.gameMode = gameMode;
         Services.get(SettingsService.class)
@@ -19,47 +19,215 @@
 
 package org.jpereda.game2048;
 
-import java.util.Random;
+import java.util.List;
 import javafx.geometry.Pos;
+import javafx.scene.CacheHint;
+import javafx.scene.Group;
+import javafx.scene.Node;
 import javafx.scene.control.Label;
+import javafx.scene.image.ImageView;
 
-public class Tile extends Label {
+/**
+ * A tile of the board.
+ *
+ * The tile is shown by a single node, its view: either a label styled with
+ * CSS, or an image view with a pre-rendered image of that label, taken from
+ * {@link TileImages}. The view is only created when the tile is rendered,
+ * so image tiles never create a label, and it is the node added to the
+ * board, without any container. The layout and scale of the tile are those
+ * of its view.
+ *
+ * @author jpereda
+ */
+public class Tile {
+
+    /**
+     * width and height of a tile
+     */
+    public static final double SIZE = Board.CELL_SIZE - 13;
 
-    private Integer value;
+    private int value;
     private Location location;
-    private Boolean merged;
+    private boolean merged;
 
-    public static Tile newRandomTile() {
-        int value = new Random().nextDouble() < 0.9 ? 2 : 4;
-        return new Tile(value);
-    }
+    private Label label;
+    private ImageView imageView;
+    // null when the tile is a label
+    private TileImages images;
+    // the label or the image view, null until the tile is rendered
+    private Node view;
 
     public static Tile newTile(int value) {
         return new Tile(value);
     }
 
-    private Tile(Integer value) {
-        final int squareSize = Board.CELL_SIZE - 13;
-        setMinSize(squareSize, squareSize);
-        setMaxSize(squareSize, squareSize);
-        setPrefSize(squareSize, squareSize);
-        setAlignment(Pos.CENTER);
-
+    private Tile(int value) {
         this.value = value;
-        this.merged = false;
-        setText(value.toString());
-        getStyleClass().setAll("game-label", "game-tile-" + value);
+    }
+
+    /**
+     * Creates the label that shows a value
+     * @param value of the tile
+     * @return a label styled with the class of the value
+     */
+    static Label createLabel(int value) {
+        Label label = new Label(Integer.toString(value));
+        label.setMinSize(SIZE, SIZE);
+        label.setMaxSize(SIZE, SIZE);
+        label.setPrefSize(SIZE, SIZE);
+        label.setAlignment(Pos.CENTER);
+        label.getStyleClass().setAll("game-label", "game-tile-" + value);
+        return label;
+    }
+
+    /**
+     * Shows the tile as a label, or as an image. If the view changes while
+     * the tile is on the board, the new view takes the place of the old one
+     * @param images pre-rendered images of the tiles, or null to show the tile
+     * as a label styled with CSS
+     */
+    void render(TileImages images) {
+        this.images = images;
+        Node previous = view;
+        if (images != null && images.isAvailable()) {
+            if (imageView == null) {
+                imageView = new ImageView();
+                imageView.setSmooth(true);
+                imageView.setUserData(this);
+            }
+            images.apply(imageView, value);
+            label = null;
+            view = imageView;
+        } else {
+            if (label == null) {
+                label = createLabel(value);
+                label.setUserData(this);
+            } else {
+                updateLabel();
+            }
+            imageView = null;
+            view = label;
+        }
+        if (previous != null && previous != view) {
+            replace(previous, view);
+        }
+    }
+
+    private static void replace(Node previous, Node view) {
+        view.setLayoutX(previous.getLayoutX());
+        view.setLayoutY(previous.getLayoutY());
+        view.setScaleX(previous.getScaleX());
+        view.setScaleY(previous.getScaleY());
+        view.setCache(previous.isCache());
+        view.setCacheHint(previous.getCacheHint());
+        if (previous.getParent() instanceof Group) {
+            List<Node> children = ((Group) previous.getParent()).getChildren();
+            children.set(children.indexOf(previous), view);
+        }
+    }
+
+    /**
+     * @param node a node of the board
+     * @return the tile shown by the node, or null if it is not a tile
+     */
+    static Tile of(Node node) {
+        return node.getUserData() instanceof Tile ? (Tile) node.getUserData() : null;
+    }
+
+    /**
+     * @return the node that shows the tile, or null if it hasn't been
+     * rendered yet
+     */
+    Node getView() {
+        return view;
+    }
+
+    public double getLayoutX() {
+        return view.getLayoutX();
+    }
+
+    public void setLayoutX(double layoutX) {
+        view.setLayoutX(layoutX);
+    }
+
+    public double getLayoutY() {
+        return view.getLayoutY();
+    }
+
+    public void setLayoutY(double layoutY) {
+        view.setLayoutY(layoutY);
+    }
+
+    public double getScaleX() {
+        return view.getScaleX();
+    }
+
+    public void setScaleX(double scaleX) {
+        view.setScaleX(scaleX);
+    }
+
+    public double getScaleY() {
+        return view.getScaleY();
+    }
+
+    public void setScaleY(double scaleY) {
+        view.setScaleY(scaleY);
+    }
+
+    public void toFront() {
+        view.toFront();
+    }
+
+    void setCache(boolean cache) {
+        view.setCache(cache);
+    }
+
+    CacheHint getCacheHint() {
+        return view.getCacheHint();
+    }
+
+    void setCacheHint(CacheHint cacheHint) {
+        view.setCacheHint(cacheHint);
+    }
+
+    private void updateContent() {
+        if (imageView != null) {
+            images.apply(imageView, value);
+        } else if (label != null) {
+            updateLabel();
+        }
+    }
+
+    private void updateLabel() {
+        label.setText(Integer.toString(value));
+        label.getStyleClass().setAll("game-label", "game-tile-" + value);
     }
 
     public void merge(Tile another) {
-        getStyleClass().remove("game-tile-" + value);
         this.value += another.getValue();
-        setText(value.toString());
         merged = true;
-        getStyleClass().add("game-tile-" + value);
+        updateContent();
+    }
+
+    /**
+     * Reuses a tile that is no longer on the board as a new tile with the
+     * given value, keeping its content
+     * @param value of the tile
+     */
+    void reset(int value) {
+        if (this.value != value) {
+            this.value = value;
+            updateContent();
+        }
+        merged = false;
+        location = null;
+        if (view != null) {
+            view.setScaleX(1);
+            view.setScaleY(1);
+        }
     }
 
-    public Integer getValue() {
+    public int getValue() {
         return value;
     }
 
@@ -88,7 +256,7 @@ public class Tile extends Label {
         if(anotherTile==null){
             return false;
         }
-        return anotherTile.getValue().equals(getValue());
+        return anotherTile.getValue() == getValue();
     }
 
 }
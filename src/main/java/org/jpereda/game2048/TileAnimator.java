@@ -0,0 +1,331 @@
+/*
+ * Copyright (C) 2013-2019 2048FX
+ * Jose Pereda, Bruno Borges & Jens Deters
+ * All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpereda.game2048;
+
+import java.util.Arrays;
+import javafx.animation.AnimationTimer;
+import javafx.animation.Interpolator;
+import javafx.scene.CacheHint;
+
+/**
+ * Animates the tiles of the board on the pulses of a single timer.
+ *
+ * Each animated tile is an entry in a few primitive arrays, with its kind,
+ * its start and end values and its duration, and all the entries are
+ * interpolated on every pulse. Nothing is created per movement, so the cost
+ * of a pulse doesn't depend on the number of tiles that move.
+ *
+ * A movement is made of the tiles that slide to their new location and the
+ * merged tiles that pop; when all of them are done, the movement listener is
+ * called. New tiles grow in after that, and the spawn listener is called when
+ * they are all done.
+ *
+ * @author jpereda
+ */
+final class TileAnimator extends AnimationTimer {
+
+    // a tile that slides from its location to a new one
+    private static final int MOVE = 0;
+    // a merged tile that grows to 120% at the middle, and then goes back to 100%
+    private static final int POP = 1;
+    // a new tile that grows to 100%
+    private static final int SPAWN = 2;
+
+    private static final double POP_SCALE = 1.2;
+
+    private final Runnable onMoveFinished;
+    private final Runnable onSpawnFinished;
+
+    private Tile[] tiles = new Tile[32];
+    private int[] kinds = new int[32];
+    private double[] fromX = new double[32];
+    private double[] fromY = new double[32];
+    private double[] toX = new double[32];
+    private double[] toY = new double[32];
+    private long[] durations = new long[32];
+    // start time of each entry, or -1 until its first pulse
+    private long[] starts = new long[32];
+    private int count;
+
+    // entries of the current movement: moves and pops
+    private int movementCount;
+    private int spawnCount;
+    private boolean running;
+    // tiles are cached as bitmaps while they are animated
+    private boolean cacheTiles;
+
+    /**
+     * @param onMoveFinished called when all the tiles of a movement are done
+     * @param onSpawnFinished called when all the new tiles are done
+     */
+    TileAnimator(Runnable onMoveFinished, Runnable onSpawnFinished) {
+        this.onMoveFinished = onMoveFinished;
+        this.onSpawnFinished = onSpawnFinished;
+    }
+
+    /**
+     * Slides a tile from its current layout to a new one
+     * @param tile to be animated
+     * @param layoutX final layout of the tile
+     * @param layoutY final layout of the tile
+     * @param millis duration
+     */
+    void move(Tile tile, double layoutX, double layoutY, double millis) {
+        add(tile, MOVE, tile.getLayoutX(), tile.getLayoutY(), layoutX, layoutY, millis);
+        movementCount++;
+    }
+
+    /**
+     * Pops a merged tile: its scale goes to 120% at the middle, and then back
+     * to 100%
+     * @param tile to be animated
+     * @param millis duration
+     */
+    void pop(Tile tile, double millis) {
+        add(tile, POP, 1, 1, 1, 1, millis);
+        movementCount++;
+    }
+
+    /**
+     * Grows a new tile from its current scale to 100%
+     * @param tile to be animated
+     * @param millis duration
+     */
+    void spawn(Tile tile, double millis) {
+        add(tile, SPAWN, tile.getScaleX(), tile.getScaleY(), 1, 1, millis);
+        spawnCount++;
+    }
+
+    /**
+     * With the software pipeline, transforming a cached bitmap is much faster
+     * than rendering the tile again on every pulse
+     * @param cacheTiles true to cache the tiles, with {@link CacheHint#SPEED},
+     * while they are animated
+     */
+    void setCacheTiles(boolean cacheTiles) {
+        this.cacheTiles = cacheTiles;
+    }
+
+    /**
+     * @return true while the tiles of a movement are animated
+     */
+    boolean isMoving() {
+        return movementCount > 0;
+    }
+
+    /**
+     * Drops the animations of a tile that is removed from the board, so it
+     * can be reused. The listeners are not called
+     * @param tile to be removed
+     */
+    void cancel(Tile tile) {
+        int j = 0;
+        for (int i = 0; i < count; i++) {
+            if (tiles[i] != tile) {
+                copy(i, j++);
+            } else if (kinds[i] == SPAWN) {
+                spawnCount--;
+            } else {
+                movementCount--;
+            }
+        }
+        clear(j);
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        super.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        super.stop();
+    }
+
+    /**
+     * Plays the animations added so far, if the timer is not running yet
+     */
+    void play() {
+        if (!running && count > 0) {
+            start();
+        }
+    }
+
+    /**
+     * Moves the tiles of the current movement to their final values, without
+     * calling the movement listener. New tiles keep growing
+     */
+    void completeMovement() {
+        int j = 0;
+        for (int i = 0; i < count; i++) {
+            if (kinds[i] == SPAWN) {
+                copy(i, j++);
+            } else {
+                apply(i, 1);
+            }
+        }
+        clear(j);
+        movementCount = 0;
+    }
+
+    /**
+     * Moves all the tiles to their final values, and stops the timer without
+     * calling any listener
+     */
+    void completeAll() {
+        for (int i = 0; i < count; i++) {
+            apply(i, 1);
+        }
+        clear(0);
+        movementCount = 0;
+        spawnCount = 0;
+        stop();
+    }
+
+    @Override
+    public void handle(long now) {
+        // the listeners may add new entries, that start on the next pulse
+        int pending = count;
+        int j = 0;
+        boolean movementDone = false;
+        boolean spawnDone = false;
+        for (int i = 0; i < pending; i++) {
+            if (starts[i] < 0) {
+                starts[i] = now;
+            }
+            long elapsed = now - starts[i];
+            if (elapsed < durations[i]) {
+                apply(i, (double) elapsed / durations[i]);
+                copy(i, j++);
+            } else {
+                apply(i, 1);
+                if (kinds[i] == SPAWN) {
+                    spawnDone = --spawnCount == 0;
+                } else {
+                    movementDone = --movementCount == 0;
+                }
+            }
+        }
+        for (int i = pending; i < count; i++) {
+            copy(i, j++);
+        }
+        clear(j);
+
+        if (movementDone) {
+            onMoveFinished.run();
+        }
+        if (spawnDone) {
+            onSpawnFinished.run();
+        }
+        if (count == 0) {
+            stop();
+        }
+    }
+
+    private void apply(int i, double fraction) {
+        Tile tile = tiles[i];
+        switch (kinds[i]) {
+            case MOVE:
+                tile.setLayoutX(Interpolator.EASE_OUT.interpolate(fromX[i], toX[i], fraction));
+                tile.setLayoutY(Interpolator.EASE_OUT.interpolate(fromY[i], toY[i], fraction));
+                break;
+            case POP:
+                double scale = fraction < 0.5
+                        ? Interpolator.EASE_IN.interpolate(1, POP_SCALE, fraction * 2)
+                        : Interpolator.EASE_OUT.interpolate(POP_SCALE, 1, fraction * 2 - 1);
+                tile.setScaleX(scale);
+                tile.setScaleY(scale);
+                break;
+            default:
+                tile.setScaleX(Interpolator.EASE_OUT.interpolate(fromX[i], toX[i], fraction));
+                tile.setScaleY(Interpolator.EASE_OUT.interpolate(fromY[i], toY[i], fraction));
+                break;
+        }
+    }
+
+    private void add(Tile tile, int kind, double x0, double y0, double x1, double y1, double millis) {
+        if (count == tiles.length) {
+            grow();
+        }
+        if (cacheTiles) {
+            tile.setCache(true);
+            tile.setCacheHint(CacheHint.SPEED);
+        }
+        tiles[count] = tile;
+        kinds[count] = kind;
+        fromX[count] = x0;
+        fromY[count] = y0;
+        toX[count] = x1;
+        toY[count] = y1;
+        durations[count] = Math.max(1L, (long) (millis * 1_000_000L));
+        starts[count] = -1;
+        count++;
+    }
+
+    private void copy(int from, int to) {
+        if (from == to) {
+            return;
+        }
+        tiles[to] = tiles[from];
+        kinds[to] = kinds[from];
+        fromX[to] = fromX[from];
+        fromY[to] = fromY[from];
+        toX[to] = toX[from];
+        toY[to] = toY[from];
+        durations[to] = durations[from];
+        starts[to] = starts[from];
+    }
+
+    /**
+     * Keeps the first entries, and releases the tiles of the others
+     */
+    private void clear(int size) {
+        for (int i = size; i < count; i++) {
+            if (tiles[i] != null && tiles[i].getCacheHint() == CacheHint.SPEED && !isAnimated(tiles[i], size)) {
+                // the cached bitmap is kept, and rendered again at its final scale
+                tiles[i].setCacheHint(CacheHint.DEFAULT);
+            }
+            tiles[i] = null;
+        }
+        count = size;
+    }
+
+    private boolean isAnimated(Tile tile, int size) {
+        for (int i = 0; i < size; i++) {
+            if (tiles[i] == tile) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void grow() {
+        int capacity = tiles.length * 2;
+        tiles = Arrays.copyOf(tiles, capacity);
+        kinds = Arrays.copyOf(kinds, capacity);
+        fromX = Arrays.copyOf(fromX, capacity);
+        fromY = Arrays.copyOf(fromY, capacity);
+        toX = Arrays.copyOf(toX, capacity);
+        toY = Arrays.copyOf(toY, capacity);
+        durations = Arrays.copyOf(durations, capacity);
+        starts = Arrays.copyOf(starts, capacity);
+    }
+}
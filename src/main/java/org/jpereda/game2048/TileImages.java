@@ -0,0 +1,153 @@
+/*
+ * Copyright (C) 2013-2019 2048FX
+ * Jose Pereda, Bruno Borges & Jens Deters
+ * All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpereda.game2048;
+
+import java.util.Arrays;
+import javafx.geometry.Bounds;
+import javafx.scene.Group;
+import javafx.scene.SnapshotParameters;
+import javafx.scene.control.Label;
+import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
+import javafx.scene.paint.Color;
+import javafx.scene.transform.Transform;
+
+/**
+ * Pre-rendered images of the tiles, one per value.
+ *
+ * Each image is a snapshot of the label of a tile, styled with CSS. The label
+ * is added for a moment to the group that holds the tiles, so it gets the
+ * same styles and fonts as the tiles on the board, and it is rendered at the
+ * scale of that group. The images are built when they are first needed, and
+ * built again after the theme or the scale change.
+ *
+ * @author jpereda
+ */
+class TileImages {
+
+    private static final class Sprite {
+        private final Image image;
+        // bounds of the label, including its effects, in tile coordinates
+        private final double x, y, width, height;
+
+        private Sprite(Image image, Bounds bounds) {
+            this(image, bounds.getMinX(), bounds.getMinY(), bounds.getWidth(), bounds.getHeight());
+        }
+
+        private Sprite(Image image, double x, double y, double width, double height) {
+            this.image = image;
+            this.x = x;
+            this.y = y;
+            this.width = width;
+            this.height = height;
+        }
+    }
+
+    private final Group host;
+    // indexed by the exponent of the value
+    private final Sprite[] sprites = new Sprite[Integer.SIZE];
+    private double scale = 1;
+
+    /**
+     * @param host group that holds the tiles
+     */
+    TileImages(Group host) {
+        this.host = host;
+    }
+
+    /**
+     * Images can only be built once the tiles are in a scene, with its
+     * stylesheets
+     * @return true if the images can be used
+     */
+    boolean isAvailable() {
+        return host.getScene() != null;
+    }
+
+    double getScale() {
+        return scale;
+    }
+
+    /**
+     * @param scale of the tiles on screen, the images are rendered with it
+     * so they look sharp
+     */
+    void setScale(double scale) {
+        if (scale > 0 && scale != this.scale) {
+            this.scale = scale;
+            invalidate();
+        }
+    }
+
+    /**
+     * Drops all the images, after a change of the theme
+     */
+    void invalidate() {
+        Arrays.fill(sprites, null);
+    }
+
+    /**
+     * Sets the image of a value, instead of rendering it, for tests that
+     * run without a scene
+     * @param value of the tile
+     * @param image of the tile
+     * @param x offset of the image, as the effects may exceed the tile
+     * @param y offset of the image
+     */
+    void setImage(int value, Image image, double x, double y) {
+        sprites[Integer.numberOfTrailingZeros(value)] = new Sprite(image, x, y, image.getWidth(), image.getHeight());
+    }
+
+    /**
+     * Shows the image of a value. The offset of the image is set as the
+     * translation of the view, so its layout keeps the location of the tile
+     * @param imageView of a tile
+     * @param value of the tile
+     */
+    void apply(ImageView imageView, int value) {
+        int index = Integer.numberOfTrailingZeros(value);
+        Sprite sprite = sprites[index];
+        if (sprite == null) {
+            sprite = render(value);
+            sprites[index] = sprite;
+        }
+        imageView.setImage(sprite.image);
+        imageView.setFitWidth(sprite.width);
+        imageView.setFitHeight(sprite.height);
+        imageView.setTranslateX(sprite.x);
+        imageView.setTranslateY(sprite.y);
+    }
+
+    private Sprite render(int value) {
+        Label label = Tile.createLabel(value);
+        host.getChildren().add(label);
+        try {
+            label.applyCss();
+            label.resize(Tile.SIZE, Tile.SIZE);
+            label.layout();
+
+            SnapshotParameters parameters = new SnapshotParameters();
+            parameters.setFill(Color.TRANSPARENT);
+            parameters.setTransform(Transform.scale(scale, scale));
+            return new Sprite(label.snapshot(parameters, null), label.getBoundsInParent());
+        } finally {
+            host.getChildren().remove(label);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright (C) 2013-2019 2048FX
+ * Jose Pereda, Bruno Borges & Jens Deters
+ * All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpereda.game2048;
+
+/**
+ * How the tiles are rendered
+ *
+ * @author jpereda
+ */
+public enum TileRendering {
+
+    /**
+     * a label per tile, styled with CSS
+     */
+    LABEL("Label"),
+    /**
+     * an image per tile, pre-rendered once per value, theme and scale,
+     * without labels nor CSS per tile
+     */
+    IMAGE("Image");
+
+    private final String text;
+
+    TileRendering(String text) {
+        this.text = text;
+    }
+
+    public String getText() {
+        return text;
+    }
+}
@@ -78,7 +78,7 @@ public class OldSessionManager {
             for(int y = 0; y < gridOperator.getGridSize(); y++) {
                 String val = props.getProperty("Location_" + x + "_" + y);
                 if (!val.equals("0")) {
-                    Tile t = Tile.newTile(new Integer(val));
+                    Tile t = Tile.newTile(Integer.parseInt(val));
                     Location l = new Location(x, y);
                     t.setLocation(l);
                     gameGrid.put(l, t);
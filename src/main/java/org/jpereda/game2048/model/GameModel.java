@@ -18,6 +18,7 @@
  */
 package org.jpereda.game2048.model;
 
+import com.gluonhq.charm.down.Platform;
 import com.gluonhq.charm.down.Services;
 import com.gluonhq.charm.down.plugins.SettingsService;
 import javafx.beans.binding.Bindings;
@@ -26,12 +27,37 @@ import javafx.beans.property.BooleanProperty;
 import javafx.beans.property.ObjectProperty;
 import javafx.beans.property.SimpleBooleanProperty;
 import javafx.beans.property.SimpleObjectProperty;
+import java.io.File;
+import java.io.IOException;
+import java.util.Locale;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.jpereda.game2048.AnimationProfile;
+import org.jpereda.game2048.Autoplay;
 import org.jpereda.game2048.Direction;
 import org.jpereda.game2048.GameManager;
-
+import org.jpereda.game2048.TileRendering;
+import org.jpereda.game2048.ai.Evaluator;
+import org.jpereda.game2048.ai.ExpectimaxSolver;
+import org.jpereda.game2048.ai.HintEngine;
+import org.jpereda.game2048.ai.LocalTranspositionTable;
+import org.jpereda.game2048.ai.MonteCarloSolver;
+import org.jpereda.game2048.ai.NTupleNetwork;
+import org.jpereda.game2048.ai.ParallelExpectimaxSolver;
+import org.jpereda.game2048.ai.TableEvaluator;
+import org.jpereda.game2048.engine.GameRandom;
+import org.jpereda.game2048.service.HintService;
+import org.jpereda.game2048.sim.ExpectimaxStrategy;
+import org.jpereda.game2048.sim.ParallelExpectimaxStrategy;
+import org.jpereda.game2048.sim.Strategy;
+
+import static org.jpereda.game2048.Game2048.GAME_ANIMATION;
+import static org.jpereda.game2048.Game2048.GAME_HINT_SOLVER;
 import static org.jpereda.game2048.Game2048.GAME_ID;
 import static org.jpereda.game2048.Game2048.GAME_LEGACY;
 import static org.jpereda.game2048.Game2048.GAME_MODE;
+import static org.jpereda.game2048.Game2048.GAME_TILE_RENDERING;
 import static org.jpereda.game2048.Game2048.GAME_VIBRATE_MODE_ON;
 
 /**
@@ -40,11 +66,33 @@ import static org.jpereda.game2048.Game2048.GAME_VIBRATE_MODE_ON;
  */
 public class GameModel {
 
+    private static final Logger LOG = Logger.getLogger(GameModel.class.getName());
+
+    // autoplay searches on the FX thread, so it looks ahead less than hints
+    private static final int AUTOPLAY_DEPTH = 2;
+    // a transposition table takes 13 bytes per slot: 13 MB with the default
+    // size, less than 1 MB with this one
+    private static final int MOBILE_TABLE_BITS = 16;
+    // more than 1 to search hints and autoplay on a fork/join pool
+    private static final int SEARCH_THREADS = Integer.getInteger("game2048.search.threads", 1);
+    // mobile devices with less heap than this use Monte Carlo hints by default
+    private static final long WEAK_DEVICE_MEMORY = 256L << 20;
+
     private GameManager gameManager;
+    // created on the first hint or autoplay, not on startup
+    private Evaluator evaluator;
+    private HintEngine hintEngine;
+    private Consumer<Direction> queuedHint;
+    private final HintService hintService = new HintService();
+    private Autoplay autoplay;
 
     private final ObjectProperty<GameMode> gameMode = new SimpleObjectProperty<>(GameMode.EASY);
 
     private final BooleanProperty vibrateModeOn = new SimpleBooleanProperty();
+    private final ObjectProperty<AnimationProfile> animationProfile = new SimpleObjectProperty<>(AnimationProfile.NORMAL);
+    private final ObjectProperty<TileRendering> tileRendering = new SimpleObjectProperty<>(TileRendering.LABEL);
+    private final ObjectProperty<HintSolver> hintSolver = new SimpleObjectProperty<>(
+            isWeakDevice() ? HintSolver.MONTE_CARLO : HintSolver.EXPECTIMAX);
     private final BooleanProperty saveEnabled = new SimpleBooleanProperty();
     private final BooleanProperty restoreEnabled = new SimpleBooleanProperty();
 
@@ -80,7 +128,61 @@ public class GameModel {
                 }
                 this.vibrateModeOn.set(settings.retrieve(GAME_VIBRATE_MODE_ON).equals("1"));
 
+                String profile = settings.retrieve(GAME_ANIMATION);
+                for (AnimationProfile p : AnimationProfile.values()) {
+                    if (p.name().equals(profile)) {
+                        animationProfile.set(p);
+                        break;
+                    }
+                }
+                animationProfile.addListener((obs, ov, nv) -> settings.store(GAME_ANIMATION, nv.name()));
+
+                String rendering = settings.retrieve(GAME_TILE_RENDERING);
+                for (TileRendering r : TileRendering.values()) {
+                    if (r.name().equals(rendering)) {
+                        tileRendering.set(r);
+                        break;
+                    }
+                }
+                tileRendering.addListener((obs, ov, nv) -> settings.store(GAME_TILE_RENDERING, nv.name()));
+
+                String solverName = settings.retrieve(GAME_HINT_SOLVER);
+                for (HintSolver h : HintSolver.values()) {
+                    if (h.name().equals(solverName)) {
+                        hintSolver.set(h);
+                        break;
+                    }
+                }
+                hintSolver.addListener((obs, ov, nv) -> {
+                    settings.store(GAME_HINT_SOLVER, nv.name());
+                    // the new solver is created on the next hint
+                    resetHintEngine();
+                });
+
                 gameManager = new GameManager(4); // default 4x4
+                gameManager.animationProfileProperty().bind(animationProfile);
+                gameManager.tileRenderingProperty().bind(tileRendering);
+                // any change of the grid, from the player, autoplay or the
+                // overlay, makes the pending hint useless
+                gameManager.boardChangedProperty().addListener((obs, b, b1) -> {
+                    if (b1) {
+                        cancelHint();
+                    }
+                });
+                // hints asked while the tiles slide are searched once they stop
+                gameManager.movingProperty().addListener((obs, b, b1) -> {
+                    if (!b1 && queuedHint != null) {
+                        Consumer<Direction> onResult = queuedHint;
+                        queuedHint = null;
+                        requestHint(onResult);
+                    }
+                });
+                gameManager.bitBoardAvailableProperty().addListener((obs, b, b1) -> {
+                    if (!b1) {
+                        queuedHint = null;
+                    }
+                });
+                startAutoplay(System.getProperty("game2048.autoplay"));
 
                 gameModeProperty().addListener((obs, i, i1) -> {
                     gameManager.saveRecord();
@@ -131,6 +233,179 @@ public class GameModel {
         gameManager.move(direction);
     }
 
+    /**
+     * Searches the best movement for the current game on a background
+     * thread. The request is cancelled if the board changes. If the tiles
+     * are moving, the search starts once they stop.
+     * @param onResult called on the FX thread with the best movement, or
+     * null if there is none
+     * @return false if the board can't be searched, as it doesn't fit in a
+     * bitboard
+     */
+    public boolean requestHint(Consumer<Direction> onResult) {
+        if (!gameManager.canUseBitBoard()) {
+            return false;
+        }
+        if (gameManager.isMoving()) {
+            queuedHint = onResult;
+            return true;
+        }
+        Long board = gameManager.getBitBoard();
+        if (board == null) {
+            return false;
+        }
+        hintService.requestHint(getHintEngine(), board, direction -> {
+            Long current = gameManager.getBitBoard();
+            if (current != null && current.longValue() == board) {
+                onResult.accept(direction);
+            }
+        });
+        return true;
+    }
+
+    public void cancelHint() {
+        queuedHint = null;
+        hintService.cancel();
+    }
+
+    /**
+     * @return the solver of the hints, created on the first call: a
+     * {@link MonteCarloSolver} if selected in the settings, a
+     * {@link ParallelExpectimaxSolver} with -Dgame2048.search.threads=n, else
+     * an {@link ExpectimaxSolver}
+     */
+    public HintEngine getHintEngine() {
+        if (hintEngine == null) {
+            if (getHintSolver() == HintSolver.MONTE_CARLO) {
+                // leaves a core for the FX thread
+                int threads = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+                hintEngine = new MonteCarloSolver(threads, GameRandom.newSeed());
+            } else if (SEARCH_THREADS > 1) {
+                hintEngine = new ParallelExpectimaxSolver(getEvaluator(), SEARCH_THREADS);
+            } else {
+                hintEngine = createSolver(getEvaluator());
+            }
+        }
+        return hintEngine;
+    }
+
+    /**
+     * @return the evaluator of the solvers, the trained network given with
+     * -Dgame2048.model or the default one, loaded on the first call
+     */
+    public Evaluator getEvaluator() {
+        if (evaluator == null) {
+            evaluator = createEvaluator(System.getProperty("game2048.model"));
+        }
+        return evaluator;
+    }
+
+    /**
+     * Replaces the evaluator used by the hints and autoplay. The new solver
+     * of the hints is created on the next hint
+     * @param evaluator of the boards, like a trained {@link NTupleNetwork}
+     */
+    public void setEvaluator(Evaluator evaluator) {
+        this.evaluator = evaluator;
+        resetHintEngine();
+        if (autoplay != null) {
+            Strategy previous = autoplay.getStrategy();
+            autoplay.setStrategy(createAutoplayStrategy());
+            close(previous);
+        }
+    }
+
+    private void resetHintEngine() {
+        if (hintEngine != null) {
+            // the pending hint may still be using the solver
+            cancelHint();
+            close(hintEngine);
+            hintEngine = null;
+        }
+    }
+
+    /**
+     * @return the autoplay of the game, with its own expectimax strategy
+     */
+    public Autoplay getAutoplay() {
+        if (autoplay == null) {
+            autoplay = new Autoplay(gameManager, createAutoplayStrategy());
+        }
+        return autoplay;
+    }
+
+    private Strategy createAutoplayStrategy() {
+        if (SEARCH_THREADS > 1) {
+            return new ParallelExpectimaxStrategy(getEvaluator(), AUTOPLAY_DEPTH, SEARCH_THREADS);
+        }
+        ExpectimaxSolver autoplaySolver = createSolver(getEvaluator());
+        autoplaySolver.setDepth(AUTOPLAY_DEPTH);
+        return new ExpectimaxStrategy(autoplaySolver);
+    }
+
+    /**
+     * Starts autoplay for unattended demos, restarting the game when it is over
+     * @param speed name of the speed, or null to do nothing
+     */
+    private void startAutoplay(String speed) {
+        if (speed == null) {
+            return;
+        }
+        try {
+            getAutoplay().setSpeed(Autoplay.Speed.valueOf(speed.toUpperCase(Locale.ROOT)));
+        } catch (IllegalArgumentException e) {
+            LOG.log(Level.WARNING, "Unknown autoplay speed " + speed, e);
+            return;
+        }
+        getAutoplay().setRestartOnGameOver(true);
+        getAutoplay().start();
+    }
+
+    /**
+     * @param model path of a trained network, or null for the default evaluator
+     */
+    private static Evaluator createEvaluator(String model) {
+        if (model != null) {
+            try {
+                return NTupleNetwork.map(new File(model));
+            } catch (IOException e) {
+                LOG.log(Level.WARNING, "Error loading model " + model, e);
+            }
+        }
+        return new TableEvaluator();
+    }
+
+    /**
+     * @param evaluator of the leaves
+     * @return a solver with a smaller transposition table on mobile devices
+     */
+    private static ExpectimaxSolver createSolver(Evaluator evaluator) {
+        int tableBits = Platform.isDesktop() ? ExpectimaxSolver.DEFAULT_TABLE_BITS : MOBILE_TABLE_BITS;
+        return new ExpectimaxSolver(evaluator, new LocalTranspositionTable(tableBits));
+    }
+
+    /**
+     * @return true on mobile devices with a small heap, where the
+     * transposition tables of the expectimax solvers are too big
+     */
+    private static boolean isWeakDevice() {
+        return !Platform.isDesktop() && Runtime.getRuntime().maxMemory() < WEAK_DEVICE_MEMORY;
+    }
+
+    /**
+     * Stops the worker threads of the parallel solvers
+     * @param resource a solver or a strategy
+     */
+    private static void close(Object resource) {
+        if (resource instanceof AutoCloseable) {
+            try {
+                ((AutoCloseable) resource).close();
+            } catch (Exception e) {
+                LOG.log(Level.WARNING, "Error closing " + resource, e);
+            }
+        }
+    }
+
     public void setGameMode(GameMode mode) {
         this.gameMode.set(mode);
     }
@@ -207,6 +482,42 @@ public class GameModel {
         return vibrateModeOn.get();
     }
 
+    public ObjectProperty<AnimationProfile> animationProfileProperty() {
+        return animationProfile;
+    }
+
+    public AnimationProfile getAnimationProfile() {
+        return animationProfile.get();
+    }
+
+    public void setAnimationProfile(AnimationProfile animationProfile) {
+        this.animationProfile.set(animationProfile);
+    }
+
+    public ObjectProperty<TileRendering> tileRenderingProperty() {
+        return tileRendering;
+    }
+
+    public TileRendering getTileRendering() {
+        return tileRendering.get();
+    }
+
+    public void setTileRendering(TileRendering tileRendering) {
+        this.tileRendering.set(tileRendering);
+    }
+
+    public ObjectProperty<HintSolver> hintSolverProperty() {
+        return hintSolver;
+    }
+
+    public HintSolver getHintSolver() {
+        return hintSolver.get();
+    }
+
+    public void setHintSolver(HintSolver hintSolver) {
+        this.hintSolver.set(hintSolver);
+    }
+
     public BooleanProperty saveEnabledProperty() {
         return saveEnabled;
     }
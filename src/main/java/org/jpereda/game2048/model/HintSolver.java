@@ -0,0 +1,47 @@
+/*
+ * Copyright (C) 2013-2019 2048FX
+ * Jose Pereda, Bruno Borges & Jens Deters
+ * All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpereda.game2048.model;
+
+/**
+ * Solver of the hints
+ *
+ * @author jpereda
+ */
+public enum HintSolver {
+
+    /**
+     * expectimax search, the strongest hints, with a transposition table
+     * that takes some megabytes
+     */
+    EXPECTIMAX("Expectimax"),
+    /**
+     * random rollouts for a fixed time, lighter on memory and battery
+     */
+    MONTE_CARLO("Monte Carlo");
+
+    private final String text;
+
+    HintSolver(String text) {
+        this.text = text;
+    }
+
+    public String getText() {
+        return text;
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright (C) 2013-2019 2048FX
+ * Jose Pereda, Bruno Borges & Jens Deters
+ * All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpereda.game2048.service;
+
+import javafx.application.Platform;
+import org.jpereda.game2048.Direction;
+import org.jpereda.game2048.ai.HintEngine;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Searches hints on a background thread, so the FX thread keeps rendering
+ * while the solver runs.
+ *
+ * Requests and cancellations are made from the FX thread. A new request, or
+ * a change of the board, cancels the previous request by interrupting its
+ * search, and its result is never delivered. Each result is delivered with
+ * a single {@link Platform#runLater(Runnable)}.
+ *
+ * @author jpereda
+ */
+public class HintService {
+
+    private static final Logger LOG = Logger.getLogger(HintService.class.getName());
+
+    // one search running, and at most one waiting: older requests are dropped
+    private final ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(1), r -> {
+                Thread thread = new Thread(r, "Hint");
+                thread.setDaemon(true);
+                thread.setPriority(Thread.MIN_PRIORITY);
+                return thread;
+            }, new ThreadPoolExecutor.DiscardOldestPolicy());
+
+    private Future<?> pending;
+    private long request;
+
+    /**
+     * Searches the best movement for the board, cancelling the previous
+     * request
+     * @param engine to search with, only used by the service thread until
+     * the search ends
+     * @param board a 4x4 bitboard
+     * @param onResult called on the FX thread with the best movement, or
+     * null if there is none, unless the request is cancelled
+     */
+    public void requestHint(HintEngine engine, long board, Consumer<Direction> onResult) {
+        cancel();
+        final long current = request;
+        pending = executor.submit(() -> {
+            final Direction direction;
+            try {
+                direction = engine.findBestMoveInterruptibly(board);
+            } catch (InterruptedException e) {
+                return;
+            } catch (RuntimeException e) {
+                LOG.log(Level.WARNING, "Error searching hint", e);
+                return;
+            }
+            Platform.runLater(() -> {
+                if (current == request) {
+                    pending = null;
+                    onResult.accept(direction);
+                }
+            });
+        });
+    }
+
+    /**
+     * Cancels the pending request, if any. To be called when the board
+     * changes
+     */
+    public void cancel() {
+        request++;
+        if (pending != null) {
+            pending.cancel(true);
+            pending = null;
+        }
+    }
+
+    /**
+     * @return true if a request hasn't delivered its result yet
+     */
+    public boolean isPending() {
+        return pending != null;
+    }
+
+    public void shutdown() {
+        cancel();
+        executor.shutdownNow();
+    }
+}
@@ -26,6 +26,7 @@ import com.gluonhq.charm.glisten.control.AppBar;
 import com.gluonhq.charm.glisten.control.BottomNavigation;
 import com.gluonhq.charm.glisten.control.BottomNavigationButton;
 import com.gluonhq.charm.glisten.control.Dialog;
+import com.gluonhq.charm.glisten.control.Toast;
 import com.gluonhq.charm.glisten.mvc.View;
 import com.gluonhq.charm.glisten.visual.MaterialDesignIcon;
 import com.gluonhq.connect.GluonObservableList;
@@ -47,6 +48,7 @@ import javafx.scene.control.Label;
 import javafx.scene.image.ImageView;
 import javafx.scene.input.KeyCode;
 import javafx.scene.layout.HBox;
+import org.jpereda.game2048.Autoplay;
 import org.jpereda.game2048.Direction;
 import org.jpereda.game2048.Game2048;
 import org.jpereda.game2048.model.GameModel;
@@ -71,6 +73,7 @@ public class GamePresenter extends GluonPresenter<Game2048> {
     @FXML private BottomNavigationButton tryAgain;
     @FXML private BottomNavigationButton share;
     @FXML private BottomNavigationButton board;
+    @FXML private BottomNavigationButton hint;
     
     @Inject
     private Cloud cloud;
@@ -198,6 +201,15 @@ public class GamePresenter extends GluonPresenter<Game2048> {
                 board.setSelected(false);
             }
         });
+        // hints are searched on the bitboard only
+        hint.disableProperty().bind(model.gameOverAndShareProperty()
+                .or(model.getGame().bitBoardAvailableProperty().not()));
+        hint.selectedProperty().addListener((obs, ov, nv) -> {
+            if (nv) {
+                hint();
+                hint.setSelected(false);
+            }
+        });
 
         model.gameModeProperty().addListener((obs, ov, nv) -> updateBoard());
         updateBoard();
@@ -258,7 +270,22 @@ public class GamePresenter extends GluonPresenter<Game2048> {
         }
     }
 
+    private void hint() {
+        if (lock) {
+            return;
+        }
+        boolean requested = model.requestHint(direction -> {
+            if (direction != null) {
+                new Toast("Hint: move " + direction.name().toLowerCase()).show();
+            }
+        });
+        if (!requested) {
+            new Toast("No hints for this board").show();
+        }
+    }
+
     public void stopGame() {
+        model.cancelHint();
         model.getGame().saveRecord();
     }
 
@@ -294,8 +321,25 @@ public class GamePresenter extends GluonPresenter<Game2048> {
                 model.quitGame();
                 return;
             }
+            if (keyCode.equals(KeyCode.H)) {
+                hint();
+                return;
+            }
+            if (keyCode.equals(KeyCode.A)) {
+                model.getAutoplay().toggle();
+                return;
+            }
+            if (keyCode.isDigitKey() && model.getAutoplay().isRunning()) {
+                // 1: normal, 2: fast, 3: turbo, 4: max
+                Autoplay.Speed[] speeds = Autoplay.Speed.values();
+                int index = keyCode.getName().charAt(keyCode.getName().length() - 1) - '1';
+                if (index >= 0 && index < speeds.length) {
+                    model.getAutoplay().setSpeed(speeds[index]);
+                }
+                return;
+            }
             if (keyCode.isArrowKey()) {
-                Direction direction = Direction.valueFor(keyCode);
+                Direction direction = Direction.valueOf(keyCode.name());
                 model.move(direction);
             }
         });
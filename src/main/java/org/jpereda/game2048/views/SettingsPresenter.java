@@ -37,9 +37,12 @@ import javafx.scene.control.Label;
 import javafx.scene.image.ImageView;
 import javafx.scene.layout.HBox;
 import javafx.util.StringConverter;
+import org.jpereda.game2048.AnimationProfile;
+import org.jpereda.game2048.TileRendering;
 import org.jpereda.game2048.Game2048;
 import org.jpereda.game2048.model.GameMode;
 import org.jpereda.game2048.model.GameModel;
+import org.jpereda.game2048.model.HintSolver;
 import org.jpereda.game2048.service.Cloud;
 
 import javax.inject.Inject;
@@ -102,7 +105,59 @@ public class SettingsPresenter extends GluonPresenter<Game2048> {
         final DefaultOption<BooleanProperty> vibrateOption = new DefaultOption<>(MaterialDesignIcon.VIBRATION.graphic(),
                 "Vibrate", "Vibrate every 2048 tile", "Options", gameModel.vibrateModeOnProperty(), true);
         
-        settingsPane.getOptions().addAll(gameModeOption, vibrateOption);
+        final DefaultOption<ObjectProperty<AnimationProfile>> animationOption = new DefaultOption<>(MaterialDesignIcon.TIMER.graphic(),
+                "Animations", "Speed of the tile animations", "Options", gameModel.animationProfileProperty(), true);
+        animationOption.setExtendedDescription("Select between: \n\n"
+                + "\u2022 Normal: Tiles slide and pop\n\n\n"
+                + "\u2022 Fast: Animations take half the time\n\n\n"
+                + "\u2022 Off: Tiles jump straight to their new place");
+        animationOption.setStringConverter(new StringConverter() {
+            @Override
+            public String toString(Object object) {
+                return ((AnimationProfile) object).getText();
+            }
+
+            @Override
+            public Object fromString(String string) {
+                return AnimationProfile.valueOf(string);
+            }
+        });
+
+        final DefaultOption<ObjectProperty<TileRendering>> renderingOption = new DefaultOption<>(MaterialDesignIcon.IMAGE.graphic(),
+                "Tiles", "How the tiles are drawn", "Options", gameModel.tileRenderingProperty(), true);
+        renderingOption.setExtendedDescription("Select between: \n\n"
+                + "\u2022 Label: Tiles are styled labels\n\n\n"
+                + "\u2022 Image: Tiles are pre-rendered images, faster on big boards and slow devices");
+        renderingOption.setStringConverter(new StringConverter() {
+            @Override
+            public String toString(Object object) {
+                return ((TileRendering) object).getText();
+            }
+
+            @Override
+            public Object fromString(String string) {
+                return TileRendering.valueOf(string);
+            }
+        });
+
+        final DefaultOption<ObjectProperty<HintSolver>> hintOption = new DefaultOption<>(MaterialDesignIcon.LIGHTBULB_OUTLINE.graphic(),
+                "Hints", "How the hints are searched", "Options", gameModel.hintSolverProperty(), true);
+        hintOption.setExtendedDescription("Select between: \n\n"
+                + "\u2022 Expectimax: Looks a few movements ahead, the best hints\n\n\n"
+                + "\u2022 Monte Carlo: Plays random games for a moment, lighter for slow devices");
+        hintOption.setStringConverter(new StringConverter() {
+            @Override
+            public String toString(Object object) {
+                return ((HintSolver) object).getText();
+            }
+
+            @Override
+            public Object fromString(String string) {
+                return HintSolver.valueOf(string);
+            }
+        });
+
+        settingsPane.getOptions().addAll(gameModeOption, vibrateOption, animationOption, renderingOption, hintOption);
         
     }
 
@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2013-2019 2048FX
+ * Jose Pereda, Bruno Borges & Jens Deters
+ * All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpereda.game2048;
+
+import javafx.scene.Group;
+import javafx.scene.image.WritableImage;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ *
+ * @author jpereda
+ */
+public class TileTest {
+
+    private static final double X = 121, Y = 242;
+    // the effects of the label exceed the tile
+    private static final double OFFSET_X = -3, OFFSET_Y = -2;
+
+    private TileImages images;
+
+    @Before
+    public void createImages() {
+        images = new TileImages(new Group()) {
+            @Override
+            boolean isAvailable() {
+                return true;
+            }
+        };
+        for (int value = 2; value <= 16; value *= 2) {
+            images.setImage(value, new WritableImage(110, 112), OFFSET_X, OFFSET_Y);
+        }
+    }
+
+    @Test
+    public void imageTileKeepsItsPositionWhenMerged() {
+        Tile tile = newImageTile(2);
+        tile.merge(Tile.newTile(2));
+        assertEquals(4, tile.getValue());
+        checkPosition(tile, X, Y);
+    }
+
+    @Test
+    public void imageTileKeepsItsPositionWhenRenderedAgain() {
+        Tile tile = newImageTile(8);
+        Group board = new Group(tile.getView());
+        images.invalidate();
+        images.setImage(8, new WritableImage(110, 112), OFFSET_X, OFFSET_Y);
+        tile.render(images);
+        checkPosition(tile, X, Y);
+        assertSame(board, tile.getView().getParent());
+    }
+
+    @Test
+    public void layoutDoesNotChangeTheImageOffset() {
+        Tile tile = newImageTile(16);
+        tile.setLayoutX(X + Board.CELL_SIZE);
+        tile.setLayoutY(Y + Board.CELL_SIZE);
+        checkPosition(tile, X + Board.CELL_SIZE, Y + Board.CELL_SIZE);
+    }
+
+    private Tile newImageTile(int value) {
+        Tile tile = Tile.newTile(value);
+        tile.render(images);
+        tile.setLayoutX(X);
+        tile.setLayoutY(Y);
+        return tile;
+    }
+
+    private static void checkPosition(Tile tile, double x, double y) {
+        assertEquals(x, tile.getLayoutX(), 0);
+        assertEquals(y, tile.getLayoutY(), 0);
+        assertEquals(x + OFFSET_X, tile.getView().getBoundsInParent().getMinX(), 1e-9);
+        assertEquals(y + OFFSET_Y, tile.getView().getBoundsInParent().getMinY(), 1e-9);
+    }
+}